@@ -0,0 +1,111 @@
+package vn.edu.hust.nmcnpm_20242_n3.configuration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Password encoder whose BCrypt cost is chosen for the hardware it runs on.
+ * New hashes are stored as "{bcrypt}$2a$NN$...", so the algorithm and cost travel with the hash.
+ * Hashes stored without a prefix (older rows) are still accepted. Any hash in another format or at a
+ * lower cost than the current setting is reported by {@link #upgradeEncoding(String)}, which lets the
+ * authentication provider re-hash it on the next successful login.
+ */
+public class AdaptivePasswordEncoder implements PasswordEncoder {
+    private static final Logger logger = LoggerFactory.getLogger(AdaptivePasswordEncoder.class);
+
+    public static final String BCRYPT_ID = "bcrypt";
+    private static final String BCRYPT_PREFIX = "{" + BCRYPT_ID + "}";
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[aby]?\\$(\\d\\d)\\$");
+
+    // Bounds accepted by BCryptPasswordEncoder
+    private static final int MIN_BCRYPT_COST = 4;
+    private static final int MAX_BCRYPT_COST = 31;
+    private static final int CALIBRATION_SAMPLES = 3;
+
+    private final int cost;
+    private final DelegatingPasswordEncoder delegate;
+
+    public AdaptivePasswordEncoder(int cost) {
+        if (cost < MIN_BCRYPT_COST || cost > MAX_BCRYPT_COST) {
+            throw new IllegalArgumentException("BCrypt cost must be between 4 and 31: " + cost);
+        }
+        this.cost = cost;
+        this.delegate = new DelegatingPasswordEncoder(BCRYPT_ID, Map.of(BCRYPT_ID, new BCryptPasswordEncoder(cost)));
+        // Rows written before the prefix was introduced are plain BCrypt strings
+        this.delegate.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+    }
+
+    /**
+     * Builds an encoder with the highest cost whose hash time stays within the target.
+     *
+     * @param targetMillis The per-hash latency budget.
+     * @param minCost      The lowest cost to accept, even if it exceeds the budget.
+     * @param maxCost      The highest cost to accept.
+     */
+    public static AdaptivePasswordEncoder calibrated(long targetMillis, int minCost, int maxCost) {
+        return new AdaptivePasswordEncoder(calibrateCost(targetMillis, minCost, maxCost));
+    }
+
+    /**
+     * Measures a hash at {@code minCost} and extrapolates, since every cost step doubles the work.
+     */
+    static int calibrateCost(long targetMillis, int minCost, int maxCost) {
+        int floor = Math.max(minCost, MIN_BCRYPT_COST);
+        int ceiling = Math.min(maxCost, MAX_BCRYPT_COST);
+        if (floor >= ceiling) return floor;
+
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(floor);
+        probe.encode("calibration"); // warm up
+
+        long[] samples = new long[CALIBRATION_SAMPLES];
+        for (int i = 0; i < samples.length; i++) {
+            long start = System.nanoTime();
+            probe.encode("calibration");
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        double measuredMillis = Math.max(samples[samples.length / 2] / 1e6, 0.001);
+
+        int steps = (int) Math.floor(Math.log(targetMillis / measuredMillis) / Math.log(2));
+        int chosen = Math.max(floor, Math.min(ceiling, floor + steps));
+        logger.info("Password hashing calibrated: cost {} takes {} ms, using cost {} for a {} ms target",
+                floor, String.format("%.1f", measuredMillis), chosen, targetMillis);
+        return chosen;
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return delegate.matches(rawPassword, encodedPassword);
+    }
+
+    /**
+     * Asks for a re-hash when the stored value is not a prefixed BCrypt hash, or is one at a lower
+     * cost than the current one. Stronger hashes are kept: a node that calibrates lower, such as a
+     * smaller or busier one, must not weaken hashes written by a faster node.
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.isEmpty()) return false;
+        if (!encodedPassword.startsWith(BCRYPT_PREFIX)) return true;
+
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword.substring(BCRYPT_PREFIX.length()));
+        return !matcher.find() || Integer.parseInt(matcher.group(1)) < cost;
+    }
+}
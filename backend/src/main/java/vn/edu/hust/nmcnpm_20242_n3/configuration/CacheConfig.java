@@ -0,0 +1,76 @@
+package vn.edu.hust.nmcnpm_20242_n3.configuration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.NoOpCache;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-process caches for catalog reference data.
+ * Every cache is bounded by size and TTL and can be tuned or switched off on its own with
+ * {@code cache.<name>.enabled}, {@code cache.<name>.ttl-seconds} and {@code cache.<name>.max-size}.
+ * Hit, miss and eviction counts are published to the StatsD registry.
+ * Inside a transaction, cache writes and evictions take effect after commit.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String CATEGORIES = "categories";
+    public static final String CATEGORY = "category";
+    public static final String AUTHORS = "authors";
+    public static final String AUTHOR = "author";
+    public static final String PUBLISHERS = "publishers";
+    public static final String PUBLISHER = "publisher";
+    public static final String BOOK = "book";
+
+    // Key of the cached "get all" list in the collection caches
+    public static final String ALL = "'all'";
+
+    private static final List<String> CACHE_NAMES = List.of(CATEGORIES, CATEGORY, AUTHORS, AUTHOR, PUBLISHERS, PUBLISHER, BOOK);
+
+    @Bean
+    public CacheManager cacheManager(MeterRegistry meterRegistry, Environment environment,
+                                     @Value("${cache.default.ttl-seconds:600}") long defaultTtlSeconds,
+                                     @Value("${cache.default.max-size:10000}") long defaultMaxSize) {
+        List<org.springframework.cache.Cache> caches = new ArrayList<>();
+        for (String name : CACHE_NAMES) {
+            boolean enabled = environment.getProperty("cache." + name + ".enabled", Boolean.class, true);
+            if (!enabled) {
+                caches.add(new NoOpCache(name));
+                continue;
+            }
+
+            long ttlSeconds = environment.getProperty("cache." + name + ".ttl-seconds", Long.class, defaultTtlSeconds);
+            long maxSize = environment.getProperty("cache." + name + ".max-size", Long.class, defaultMaxSize);
+            Cache<Object, Object> cache = Caffeine.newBuilder()
+                    .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                    .maximumSize(maxSize)
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+            caches.add(new CaffeineCache(name, cache, false));
+        }
+
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(caches);
+        cacheManager.initializeCaches();
+        // Puts and evictions made inside a transaction wait for its commit, so a reader cannot
+        // re-cache a row between an early eviction and the commit of the write
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
@@ -0,0 +1,70 @@
+package vn.edu.hust.nmcnpm_20242_n3.configuration;
+
+import org.springframework.security.authentication.AccountStatusException;
+import org.springframework.security.authentication.AccountStatusUserDetailsChecker;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsChecker;
+import vn.edu.hust.nmcnpm_20242_n3.service.CredentialCacheService;
+
+import java.util.Optional;
+
+/**
+ * Authentication provider that answers repeated HTTP Basic credentials from the
+ * {@link CredentialCacheService} and only falls back to the delegate (user lookup
+ * and password hash check) on a cache miss. A cache hit still goes through the same account
+ * status checks as the delegate: locked, disabled, expired account and expired credentials.
+ */
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+    private final AuthenticationProvider delegate;
+    private final CredentialCacheService credentialCacheService;
+    private final UserDetailsChecker userDetailsChecker = new AccountStatusUserDetailsChecker();
+
+    public CachingAuthenticationProvider(AuthenticationProvider delegate, CredentialCacheService credentialCacheService) {
+        this.delegate = delegate;
+        this.credentialCacheService = credentialCacheService;
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        String username = authentication.getName();
+        Object credentials = authentication.getCredentials();
+        if (username == null || credentials == null) {
+            return delegate.authenticate(authentication);
+        }
+        String rawPassword = credentials.toString();
+
+        Optional<UserDetails> cached = credentialCacheService.lookup(username, rawPassword);
+        if (cached.isPresent()) {
+            UserDetails principal = cached.get();
+            try {
+                userDetailsChecker.check(principal);
+            } catch (AccountStatusException e) {
+                // Do not keep answering from a principal that no longer passes
+                credentialCacheService.invalidate(username);
+                throw e;
+            }
+            UsernamePasswordAuthenticationToken result = UsernamePasswordAuthenticationToken.authenticated(
+                    principal, null, principal.getAuthorities());
+            result.setDetails(authentication.getDetails());
+            return result;
+        }
+
+        // Read before the user is loaded, so a change committed meanwhile keeps this result out of the cache
+        long generation = credentialCacheService.generation();
+        Authentication result = delegate.authenticate(authentication);
+        if (result != null && result.getPrincipal() instanceof UserDetails principal) {
+            credentialCacheService.put(username, rawPassword, principal, generation);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return UsernamePasswordAuthenticationToken.class.isAssignableFrom(authentication);
+    }
+}
@@ -5,28 +5,53 @@ import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import vn.edu.hust.nmcnpm_20242_n3.entity.User;
 import vn.edu.hust.nmcnpm_20242_n3.repository.UserRepository;
 
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
 @Component
 @Slf4j
 public class DataSeeder {
     private static final Logger logger = LoggerFactory.getLogger(DataSeeder.class);
 
+    // $2a$10$ followed by 53 characters of salt and hash
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("^\\$2[aby]?\\$\\d\\d\\$[./A-Za-z0-9]{53}$");
+
     @Autowired
     private final UserRepository userRepository;
 
     @Autowired
     private final PasswordEncoder encoder;
 
-    public DataSeeder(UserRepository userRepository, @Lazy PasswordEncoder encoder) {
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${seeder.batch-size:500}")
+    private int batchSize;
+
+    @Value("${seeder.hash-parallelism:0}")
+    private int hashParallelism;
+
+    public DataSeeder(UserRepository userRepository, @Lazy PasswordEncoder encoder,
+                      PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
         this.encoder = encoder;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     @Bean
@@ -34,13 +59,69 @@ public class DataSeeder {
         return args -> {
             logger.atInfo().log("Altering initial data...");
 
-            for (User user : userRepository.findAll()) {
-                user.setPassword(encoder.encode(user.getPassword()));
-                userRepository.save(user);
+            int parallelism = hashParallelism > 0 ? hashParallelism : Runtime.getRuntime().availableProcessors();
+            ForkJoinPool hashPool = new ForkJoinPool(parallelism);
+            try {
+                encodePlainPasswords(hashPool);
+            } finally {
+                hashPool.shutdown();
             }
             logger.atInfo().log("Default admin account created with username 'admin' and password 'password'.");
 
             logger.atInfo().log("Initial data seeded successfully.");
         };
     }
+
+    /**
+     * Encodes every password that is still stored in plain text.
+     * Users are processed in chunks of {@code seeder.batch-size}, each in its own transaction,
+     * so the dirty users of a chunk are flushed as one JDBC batch. Hashing inside a chunk runs
+     * on the given bounded pool.
+     */
+    private void encodePlainPasswords(ForkJoinPool hashPool) throws InterruptedException, ExecutionException {
+        long total = userRepository.count();
+        long start = System.nanoTime();
+        int scanned = 0;
+        int encoded = 0;
+        int page = 0;
+        boolean hasNext = true;
+
+        while (hasNext) {
+            PageRequest pageRequest = PageRequest.of(page++, batchSize, Sort.by("id"));
+            int[] chunk = hashPool.submit(() -> transactionTemplate.execute(status -> {
+                Slice<User> users = userRepository.findAllBy(pageRequest);
+                List<User> plain = users.getContent().stream()
+                        .filter(user -> !isEncoded(user.getPassword()))
+                        .toList();
+
+                String[] hashes = new String[plain.size()];
+                IntStream.range(0, plain.size()).parallel()
+                        .forEach(i -> hashes[i] = encoder.encode(plain.get(i).getPassword()));
+                for (int i = 0; i < hashes.length; i++) {
+                    plain.get(i).setPassword(hashes[i]);
+                }
+
+                userRepository.saveAll(plain);
+                return new int[] {users.getNumberOfElements(), plain.size(), users.hasNext() ? 1 : 0};
+            })).get();
+
+            scanned += chunk[0];
+            encoded += chunk[1];
+            hasNext = chunk[2] == 1;
+
+            double seconds = (System.nanoTime() - start) / 1e9;
+            logger.info("Password seeding: {}/{} users scanned, {} encoded ({} hashes/s)",
+                    scanned, total, encoded, String.format("%.1f", seconds > 0 ? encoded / seconds : 0));
+        }
+    }
+
+    /**
+     * Checks whether a stored password is already a hash, either a raw BCrypt string
+     * or an encoder-id prefixed value such as "{bcrypt}...".
+     */
+    static boolean isEncoded(String password) {
+        if (password == null) return true;
+        if (password.startsWith("{") && password.indexOf('}') > 1) return true;
+        return BCRYPT_PATTERN.matcher(password).matches();
+    }
 }
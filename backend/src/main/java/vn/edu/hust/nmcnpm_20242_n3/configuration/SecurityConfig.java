@@ -1,21 +1,25 @@
 package vn.edu.hust.nmcnpm_20242_n3.configuration;
 
 import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.servlet.error.DefaultErrorAttributes;
 import org.springframework.boot.web.servlet.error.ErrorAttributes;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 import org.springframework.web.context.request.WebRequest;
+import vn.edu.hust.nmcnpm_20242_n3.service.CredentialCacheService;
+import vn.edu.hust.nmcnpm_20242_n3.service.SessionTokenService;
 import vn.edu.hust.nmcnpm_20242_n3.service.UserService;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -34,7 +38,9 @@ public class SecurityConfig {
     private final UserService userService;
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http,
+                                                   CachingAuthenticationProvider cachingAuthenticationProvider,
+                                                   SessionTokenService sessionTokenService) {
         try {
             http
                     .csrf(AbstractHttpConfigurer::disable) // Disable CSRF protection
@@ -44,8 +50,10 @@ public class SecurityConfig {
                             .requestMatchers("/api/auth/**").permitAll() // Allow public access to login endpoint
                             .anyRequest().authenticated() // Require authentication for all other requests
                     )
-                    .userDetailsService(userService) // Set custom UserDetailsService
+                    .authenticationProvider(cachingAuthenticationProvider) // Skip re-hashing recently verified credentials
                     .formLogin(AbstractHttpConfigurer::disable) // Disable form login for now
+                    .addFilterBefore(new SessionTokenAuthenticationFilter(sessionTokenService),
+                            BasicAuthenticationFilter.class) // Accept signed session tokens before falling back to basic
                     .httpBasic(Customizer.withDefaults()); // Enable basic authentication
 
             return http.build();
@@ -61,8 +69,24 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${security.password.cost:0}") int cost,
+                                           @Value("${security.password.target-ms:250}") long targetMillis,
+                                           @Value("${security.password.min-cost:10}") int minCost,
+                                           @Value("${security.password.max-cost:16}") int maxCost) {
+        // A fixed cost skips calibration, e.g. to keep all nodes of a mixed cluster in agreement
+        if (cost > 0) {
+            return new AdaptivePasswordEncoder(cost);
+        }
+        return AdaptivePasswordEncoder.calibrated(targetMillis, minCost, maxCost);
+    }
+
+    @Bean
+    public CachingAuthenticationProvider cachingAuthenticationProvider(CredentialCacheService credentialCacheService,
+                                                                       PasswordEncoder passwordEncoder) {
+        DaoAuthenticationProvider daoAuthenticationProvider = new DaoAuthenticationProvider(passwordEncoder);
+        daoAuthenticationProvider.setUserDetailsService(userService);
+        daoAuthenticationProvider.setUserDetailsPasswordService(userService); // Re-hash outdated passwords on login
+        return new CachingAuthenticationProvider(daoAuthenticationProvider, credentialCacheService);
     }
 
 //    @Bean
@@ -0,0 +1,47 @@
+package vn.edu.hust.nmcnpm_20242_n3.configuration;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import vn.edu.hust.nmcnpm_20242_n3.service.SessionTokenService;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Authenticates requests carrying "Authorization: Bearer &lt;session token&gt;".
+ * Verification is a signature check plus an in-memory revocation lookup, so no database
+ * access happens here. Requests without a valid token continue down the chain unchanged.
+ */
+public class SessionTokenAuthenticationFilter extends OncePerRequestFilter {
+
+    private final SessionTokenService sessionTokenService;
+
+    public SessionTokenAuthenticationFilter(SessionTokenService sessionTokenService) {
+        this.sessionTokenService = sessionTokenService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String encoded = SessionTokenService.resolveBearer(request.getHeader(HttpHeaders.AUTHORIZATION));
+        if (encoded != null && sessionTokenService.isEnabled()) {
+            sessionTokenService.verify(encoded).ifPresent(token -> {
+                UsernamePasswordAuthenticationToken authentication = UsernamePasswordAuthenticationToken.authenticated(
+                        token, null, List.of(new SimpleGrantedAuthority("ROLE_" + token.role())));
+
+                SecurityContext context = SecurityContextHolder.createEmptyContext();
+                context.setAuthentication(authentication);
+                SecurityContextHolder.setContext(context);
+            });
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,7 @@
+package vn.edu.hust.nmcnpm_20242_n3.constant;
+
+public enum BookSortEnum {
+    ID,
+    TITLE,
+    RECENT // Newest first, ids are allocated in insertion order
+}
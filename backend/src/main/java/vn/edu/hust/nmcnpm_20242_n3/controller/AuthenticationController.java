@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseCookie;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -14,11 +15,16 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 import vn.edu.hust.nmcnpm_20242_n3.dto.UserDTO;
 import vn.edu.hust.nmcnpm_20242_n3.service.AuthenticationService;
+import vn.edu.hust.nmcnpm_20242_n3.service.PasswordHashingService;
+import vn.edu.hust.nmcnpm_20242_n3.service.SessionTokenService;
 import vn.edu.hust.nmcnpm_20242_n3.service.UserService;
 
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -29,9 +35,15 @@ public class AuthenticationController {
     private final AuthenticationManager authManager;
     private final UserService userService;
     private final AuthenticationService authenticationService;
+    private final SessionTokenService sessionTokenService;
+    private final PasswordHashingService passwordHashingService;
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody LoginRequest request) {
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody LoginRequest request) {
+        return offload(() -> authenticateAndIssue(request));
+    }
+
+    private ResponseEntity<?> authenticateAndIssue(LoginRequest request) {
         try {
             var authToken = new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword());
             authManager.authenticate(authToken);
@@ -44,9 +56,16 @@ public class AuthenticationController {
 
             String userId = userDetails.get().getId();
 
-            // Create a basic auth token (Base64 encoded userId:username:password)
-            String basicAuthValue = Base64.getEncoder().encodeToString(
-                    (request.getUsername() + ":" + request.getPassword()).getBytes(StandardCharsets.UTF_8));
+            String authValue;
+            if (sessionTokenService.isEnabled()) {
+                // Signed session token, verified by the filter chain without a password hash or DB lookup
+                authValue = SessionTokenService.BEARER_PREFIX + sessionTokenService.issue(
+                        userId, request.getUsername(), userDetails.get().getRoleName());
+            } else {
+                // Create a basic auth token (Base64 encoded userId:username:password)
+                authValue = Base64.getEncoder().encodeToString(
+                        (request.getUsername() + ":" + request.getPassword()).getBytes(StandardCharsets.UTF_8));
+            }
 
             ResponseCookie userIdCookie = ResponseCookie.from("USERID", userId)
                     .httpOnly(true)
@@ -68,21 +87,43 @@ public class AuthenticationController {
             return ResponseEntity.ok()
                     .header(HttpHeaders.SET_COOKIE, userIdCookie.toString())
                     .header(HttpHeaders.SET_COOKIE, userNameCookie.toString())
-                    .body(basicAuthValue);
+                    .body(authValue);
         } catch (AuthenticationException e) {
             return ResponseEntity.status(401).body("Authentication failed: " + e.getMessage());
         }
     }
 
     @PostMapping("/logout")
-    public ResponseEntity<?> logout() {
+    public ResponseEntity<?> logout(@RequestHeader(value = "Authorization", required = false) String authHeader) {
+        // Revoke the session token on every node, if one was presented
+        String token = SessionTokenService.resolveBearer(authHeader);
+        if (token != null) {
+            sessionTokenService.verify(token).ifPresent(sessionTokenService::revoke);
+        }
+
         // Add cookie to response headers
         return ResponseEntity.ok()
                 .body("Logout successful!");
     }
 
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestHeader("Authorization") String authHeader) {
+        String token = SessionTokenService.resolveBearer(authHeader);
+        if (token == null || !sessionTokenService.isEnabled()) {
+            return ResponseEntity.status(401).body("Invalid authorization header");
+        }
+
+        return sessionTokenService.refresh(token)
+                .<ResponseEntity<?>>map(refreshed -> ResponseEntity.ok(SessionTokenService.BEARER_PREFIX + refreshed))
+                .orElseGet(() -> ResponseEntity.status(401).body("Session token expired or revoked"));
+    }
+
     @PostMapping("/register")
-    public ResponseEntity<?> register(@RequestBody RegisterRequest request) {
+    public CompletableFuture<ResponseEntity<?>> register(@RequestBody RegisterRequest request) {
+        return offload(() -> registerUser(request));
+    }
+
+    private ResponseEntity<?> registerUser(RegisterRequest request) {
         try {
             UserDTO userDTO = userService.createUser(
                     request.getName(),
@@ -97,7 +138,24 @@ public class AuthenticationController {
     }
 
     @PostMapping("/verify")
-    public ResponseEntity<?> verifyUser(@RequestHeader("Authorization") String authHeader) {
+    public CompletableFuture<ResponseEntity<?>> verifyUser(@RequestHeader("Authorization") String authHeader) {
+        String token = SessionTokenService.resolveBearer(authHeader);
+        if (token != null && sessionTokenService.isEnabled()) {
+            // Answer from the token claims alone, no hashing involved
+            return CompletableFuture.completedFuture(sessionTokenService.verify(token)
+                    .<ResponseEntity<?>>map(session -> {
+                        UserDTO dto = new UserDTO();
+                        dto.setId(session.userId());
+                        dto.setUserName(session.username());
+                        dto.setRoleName(session.role());
+                        return ResponseEntity.ok(dto);
+                    })
+                    .orElseGet(() -> ResponseEntity.status(401).body("Session token expired or revoked")));
+        }
+        return offload(() -> verifyBasic(authHeader));
+    }
+
+    private ResponseEntity<?> verifyBasic(String authHeader) {
         try {
             if (authHeader == null || !authHeader.startsWith("Basic ")) {
                 return ResponseEntity.status(401).body("Invalid authorization header");
@@ -132,6 +190,19 @@ public class AuthenticationController {
         }
     }
 
+    /**
+     * Runs password hashing work on the dedicated executor, answering 429 when it is saturated.
+     */
+    private CompletableFuture<ResponseEntity<?>> offload(Supplier<ResponseEntity<?>> task) {
+        try {
+            return passwordHashingService.submit(task);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body("Too many authentication requests, please retry shortly"));
+        }
+    }
+
     @Getter
     @Setter
     @AllArgsConstructor
@@ -1,10 +1,13 @@
 package vn.edu.hust.nmcnpm_20242_n3.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import vn.edu.hust.nmcnpm_20242_n3.dto.AuthorDTO;
 import vn.edu.hust.nmcnpm_20242_n3.entity.Author;
+import vn.edu.hust.nmcnpm_20242_n3.service.CatalogVersionService;
 import vn.edu.hust.nmcnpm_20242_n3.service.AuthorService;
 
 import java.util.List;
@@ -14,15 +17,19 @@ import java.util.List;
 public class AuthorController {
 
     private final AuthorService authorService;
+    private final CatalogVersionService catalogVersionService;
 
     @Autowired
-    public AuthorController(AuthorService authorService) {
+    public AuthorController(AuthorService authorService, CatalogVersionService catalogVersionService) {
         this.authorService = authorService;
+        this.catalogVersionService = catalogVersionService;
     }
 
     @GetMapping // Get All
-    public List<AuthorDTO> getAllAuthors() {
-        return authorService.getAllAuthors();
+    public ResponseEntity<List<AuthorDTO>> getAllAuthors(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = catalogVersionService.etag(CatalogVersionService.Resource.AUTHORS);
+        return ConditionalGet.respond(ifNoneMatch, etag, authorService::getAllAuthors);
     }
 
     @GetMapping("/search/{name}") // Get By Name
@@ -1,26 +1,43 @@
 package vn.edu.hust.nmcnpm_20242_n3.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.data.domain.Page;
+import vn.edu.hust.nmcnpm_20242_n3.constant.BookSortEnum;
 import vn.edu.hust.nmcnpm_20242_n3.dto.BookDTO;
+import vn.edu.hust.nmcnpm_20242_n3.dto.BookSearchResultDTO;
 import vn.edu.hust.nmcnpm_20242_n3.entity.Book;
+import vn.edu.hust.nmcnpm_20242_n3.service.BookExportService;
+import vn.edu.hust.nmcnpm_20242_n3.service.BookImportService;
 import vn.edu.hust.nmcnpm_20242_n3.service.BookService;
+import vn.edu.hust.nmcnpm_20242_n3.service.CatalogVersionService;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/books")
 public class BookController {
 
     private final BookService bookService;
+    private final BookExportService bookExportService;
+    private final BookImportService bookImportService;
+    private final CatalogVersionService catalogVersionService;
 
     @Autowired
-    public BookController(BookService bookService) {
+    public BookController(BookService bookService, BookExportService bookExportService,
+                          BookImportService bookImportService, CatalogVersionService catalogVersionService) {
         this.bookService = bookService;
+        this.bookExportService = bookExportService;
+        this.bookImportService = bookImportService;
+        this.catalogVersionService = catalogVersionService;
     }
 
     @PostMapping // Add New
@@ -34,24 +51,44 @@ public class BookController {
         }
     }
 
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"}) // Bulk import from CSV or NDJSON
+    @PreAuthorize("hasRole('ROLE_ADMIN') or hasRole('ROLE_STAFF')")
+    public ResponseEntity<?> importBooks(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                         InputStream body) {
+        BookImportService.Format format = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.parseMediaType("text/csv"))
+                ? BookImportService.Format.CSV : BookImportService.Format.NDJSON;
+        try {
+            return new ResponseEntity<>(bookImportService.importBooks(body, format), HttpStatus.OK);
+        } catch (IllegalArgumentException | IOException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
     @GetMapping // Get All
-    public ResponseEntity<?> getAllBooks() {
-        List<BookDTO> books = bookService.findAllBooks().stream()
-                .map(bookService::convertToDTO)
-                .collect(Collectors.toList());
+    public ResponseEntity<?> getAllBooks(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = catalogVersionService.etag(CatalogVersionService.Resource.BOOKS);
+        if (CatalogVersionService.matches(ifNoneMatch, etag)) {
+            return ConditionalGet.notModified(etag);
+        }
+
+        List<BookDTO> books = bookService.convertToDTOs(bookService.findAllBooks());
 
         if (books.isEmpty()) {
             return new ResponseEntity<>("No books found", HttpStatus.NOT_FOUND);
         }
 
-        return new ResponseEntity<>(books, HttpStatus.OK);
+        return ConditionalGet.ok(etag, books);
+    }
+
+    @GetMapping(params = "stream=true") // Get All, streamed without buffering the catalog
+    public ResponseEntity<StreamingResponseBody> streamAllBooks() {
+        StreamingResponseBody body = bookExportService::exportAllBooks;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
     @GetMapping("/page/{page}/{size}") // Get Page by PageNumber(page) and size
     public ResponseEntity<?> getBooksByPage(@PathVariable int page, @PathVariable int size) {
-        List<BookDTO> books = bookService.findBooksByPage(page, size).stream()
-                .map(bookService::convertToDTO)
-                .collect(Collectors.toList());
+        List<BookDTO> books = bookService.convertToDTOs(bookService.findBooksByPage(page, size));
 
         if (books.isEmpty()) {
             return new ResponseEntity<>("No books found in this page", HttpStatus.NOT_FOUND);
@@ -61,21 +98,68 @@ public class BookController {
     }
 
 
+    @GetMapping("/list") // Get a page after the given cursor, sorted by id, title or recent
+    public ResponseEntity<?> getBooksByCursor(@RequestParam(defaultValue = "id") String sort,
+                                              @RequestParam(required = false) String cursor,
+                                              @RequestParam(defaultValue = "20") int size,
+                                              @RequestParam(defaultValue = "false") boolean includeTotal) {
+        try {
+            BookSortEnum sortEnum = BookSortEnum.valueOf(sort.toUpperCase());
+            return new ResponseEntity<>(bookService.findBooksByCursor(sortEnum, cursor, size, includeTotal), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
     @GetMapping("/{id}") // Get By Id
-    public ResponseEntity<?> getBookById(@PathVariable int id) {
+    public ResponseEntity<?> getBookById(@PathVariable int id,
+                                         @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = catalogVersionService.bookEtag(id);
+        if (CatalogVersionService.matches(ifNoneMatch, etag)) {
+            return ConditionalGet.notModified(etag);
+        }
         try {
-            Book book = bookService.getById(id);
-            return new ResponseEntity<>(bookService.convertToDTO(book), HttpStatus.OK);
+            return ConditionalGet.ok(etag, bookService.getDTOById(id));
         } catch (IllegalArgumentException e) {
             return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
         }
     }
 
+    @GetMapping("/search") // Full-text search with optional filters
+    public ResponseEntity<?> searchBooks(@RequestParam(defaultValue = "") String q,
+                                         @RequestParam(required = false) Integer authorId,
+                                         @RequestParam(required = false) Integer categoryId,
+                                         @RequestParam(required = false) Integer publisherId,
+                                         @RequestParam(defaultValue = "1") int page,
+                                         @RequestParam(defaultValue = "20") int size) {
+        try {
+            Page<Book> result = bookService.fullTextSearch(q, authorId, categoryId, publisherId, page, size);
+            List<BookDTO> books = bookService.convertToDTOs(result.getContent());
+            return new ResponseEntity<>(new BookSearchResultDTO(books, page, size, result.getTotalElements()), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @GetMapping("/facets") // Faceted search with per-facet counts
+    public ResponseEntity<?> facetSearch(@RequestParam(defaultValue = "") String q,
+                                         @RequestParam(required = false) Integer authorId,
+                                         @RequestParam(required = false) Integer categoryId,
+                                         @RequestParam(required = false) Integer publisherId,
+                                         @RequestParam(defaultValue = "1") int page,
+                                         @RequestParam(defaultValue = "20") int size) {
+        try {
+            return new ResponseEntity<>(bookService.facetSearch(q, authorId, categoryId, publisherId, page, size), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
     @GetMapping("/search/title/{title}") // Get By Title
     public ResponseEntity<?> searchBooksByTitle(@PathVariable String title) {
-        List<BookDTO> books = bookService.searchByTitle(title).stream()
-                .map(bookService::convertToDTO)
-                .collect(Collectors.toList());
+        List<BookDTO> books = bookService.convertToDTOs(bookService.searchByTitle(title));
 
         if (books.isEmpty()) {
             return new ResponseEntity<>("No books found with title containing: " + title, HttpStatus.NOT_FOUND);
@@ -86,9 +170,7 @@ public class BookController {
 
     @GetMapping("/search/publisher/{publisherId}") // Get By PublisherId
     public ResponseEntity<?> searchBooksByPublisher(@PathVariable int publisherId) {
-        List<BookDTO> books = bookService.searchByPublisherId(publisherId).stream()
-                .map(bookService::convertToDTO)
-                .collect(Collectors.toList());
+        List<BookDTO> books = bookService.convertToDTOs(bookService.searchByPublisherId(publisherId));
 
         if (books.isEmpty()) {
             return new ResponseEntity<>("No books found with publisher name containing: " + publisherId, HttpStatus.NOT_FOUND);
@@ -99,9 +181,7 @@ public class BookController {
 
     @GetMapping("/search/category/{categoryId}") // Get By CategoryId
     public ResponseEntity<?> searchBooksByCategory(@PathVariable int categoryId) {
-        List<BookDTO> books = bookService.searchByCategoryId(categoryId).stream()
-                .map(bookService::convertToDTO)
-                .collect(Collectors.toList());
+        List<BookDTO> books = bookService.convertToDTOs(bookService.searchByCategoryId(categoryId));
 
         if (books.isEmpty()) {
             return new ResponseEntity<>("No books found with category name containing: " + categoryId, HttpStatus.NOT_FOUND);
@@ -112,9 +192,7 @@ public class BookController {
 
     @GetMapping("/search/author/{authorId}") // Get By AuthorId
     public ResponseEntity<?> searchBooksByAuthor(@PathVariable int authorId) {
-        List<BookDTO> books = bookService.searchByAuthorId(authorId).stream()
-                .map(bookService::convertToDTO)
-                .collect(Collectors.toList());
+        List<BookDTO> books = bookService.convertToDTOs(bookService.searchByAuthorId(authorId));
 
         if (books.isEmpty()) {
             return new ResponseEntity<>("No books found with author name containing: " + authorId, HttpStatus.NOT_FOUND);
@@ -6,6 +6,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import vn.edu.hust.nmcnpm_20242_n3.constant.BookCopyStatusEnum;
+import vn.edu.hust.nmcnpm_20242_n3.dto.BookCopyBatchDTO;
 import vn.edu.hust.nmcnpm_20242_n3.dto.BookCopyDTO;
 import vn.edu.hust.nmcnpm_20242_n3.service.BookCopyService;
 
@@ -49,6 +50,19 @@ public class BookCopyController {
         }
     }
 
+    @PostMapping("/batch")
+    @PreAuthorize("hasRole('ROLE_ADMIN') or hasRole('ROLE_STAFF')")
+    public ResponseEntity<?> createBookCopies(@RequestParam int bookId, @RequestParam int count) {
+        try {
+            BookCopyBatchDTO createdBookCopies = bookCopyService.createBookCopies(bookId, count);
+            return ResponseEntity.status(201).body(createdBookCopies);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("Error creating book copies: " + e.getMessage());
+        }
+    }
+
     @DeleteMapping("/delete/{id}")
     @PreAuthorize("hasRole('ROLE_ADMIN') or hasRole('ROLE_STAFF')")
     public ResponseEntity<?> deleteBookCopy(@PathVariable int id) {
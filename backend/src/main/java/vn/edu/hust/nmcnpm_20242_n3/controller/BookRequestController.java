@@ -1,15 +1,18 @@
 package vn.edu.hust.nmcnpm_20242_n3.controller;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.access.prepost.PreAuthorize;
-import vn.edu.hust.nmcnpm_20242_n3.constant.BookCopyStatusEnum;
+import vn.edu.hust.nmcnpm_20242_n3.constant.BookRequestStatusEnum;
+import vn.edu.hust.nmcnpm_20242_n3.constant.BookRequestTypeEnum;
 import vn.edu.hust.nmcnpm_20242_n3.dto.BookRequestDTO;
-import vn.edu.hust.nmcnpm_20242_n3.entity.BookCopy;
-import vn.edu.hust.nmcnpm_20242_n3.repository.BookCopyRepository;
+import vn.edu.hust.nmcnpm_20242_n3.dto.BookRequestDecisionDTO;
 import vn.edu.hust.nmcnpm_20242_n3.service.AuthenticationService;
 import vn.edu.hust.nmcnpm_20242_n3.service.BookRequestService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -19,22 +22,27 @@ import org.springframework.web.bind.annotation.*;
 public class BookRequestController {
 
     private final BookRequestService bookRequestService;
-    private final BookCopyRepository bookCopyRepository;
     private final AuthenticationService authenticationService;
 
     @Autowired
-    public BookRequestController(BookRequestService bookRequestService, BookCopyRepository bookCopyRepository, AuthenticationService authenticationService) {
+    public BookRequestController(BookRequestService bookRequestService, AuthenticationService authenticationService) {
         this.bookRequestService = bookRequestService;
-        this.bookCopyRepository = bookCopyRepository;
         this.authenticationService = authenticationService;
     }
 
     @GetMapping
     @PreAuthorize("hasRole('ROLE_ADMIN') or hasRole('ROLE_STAFF')")
-    public ResponseEntity<?> getAllRequests() {
+    public ResponseEntity<?> getRequestQueue(@RequestParam(required = false) BookRequestStatusEnum status,
+                                             @RequestParam(required = false) BookRequestTypeEnum type,
+                                             @RequestParam(required = false) String userId,
+                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                             @RequestParam(defaultValue = "1") int page,
+                                             @RequestParam(defaultValue = "20") int size) {
         try {
-            List<BookRequestDTO> requests = bookRequestService.getAllRequests();
-            return ResponseEntity.ok().body(requests);
+            return ResponseEntity.ok().body(bookRequestService.getRequestQueue(status, type, userId, from, to, page, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Error: " + e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error: " + e.getMessage());
         }
@@ -56,6 +64,18 @@ public class BookRequestController {
         }
     }
 
+    @PostMapping("/process/batch")
+    @PreAuthorize("hasRole('ROLE_ADMIN') or hasRole('ROLE_STAFF')")
+    public ResponseEntity<?> processRequests(@RequestBody List<BookRequestDecisionDTO> decisions) {
+        try {
+            return ResponseEntity.ok().body(bookRequestService.processRequests(decisions));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Error: " + e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Error: " + e.getMessage());
+        }
+    }
+
     @GetMapping("/user/{userId}")
     @PreAuthorize("hasRole('ROLE_ADMIN') or hasRole('ROLE_STAFF') or @authenticationService.isAuthorizedUser(#userId)")
     public List<BookRequestDTO> listAllRequestsFromUser(@PathVariable("userId") String userId) {
@@ -82,13 +102,11 @@ public class BookRequestController {
     public ResponseEntity<?> newBorrowingRequest_Random(@PathVariable("userId") String userId,
             @RequestParam("bookId") Integer bookId) {
         try {
-            BookCopy bookCopy = bookCopyRepository
-                    .findFirstByOriginalBook_BookIdAndStatus(bookId, BookCopyStatusEnum.AVAILABLE)
-                    .orElseThrow(() -> new IllegalArgumentException("No such book copy found!"));
-            Integer bookCopyId = bookCopy.getId();
-
-            return new ResponseEntity<>(bookRequestService.newBorrowingRequest(userId, bookCopyId), HttpStatus.CREATED);
+            return new ResponseEntity<>(bookRequestService.newBorrowingRequestForBook(userId, bookId), HttpStatus.CREATED);
         } catch (IllegalArgumentException e) {
+            if (e.getMessage().contains("already have another pending borrowing request")) {
+                return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
+            }
             return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
         }
     }
@@ -110,6 +128,8 @@ public class BookRequestController {
         try {
             bookRequestService.cancelRequest(requestId);
             return new ResponseEntity<>("Request cancelled successfully", HttpStatus.OK);
+        } catch (OptimisticLockingFailureException e) {
+            return new ResponseEntity<>("Request was processed concurrently, please reload it", HttpStatus.CONFLICT);
         } catch (Exception e) {
             return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
         }
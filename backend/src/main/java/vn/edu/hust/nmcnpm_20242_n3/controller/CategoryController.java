@@ -1,9 +1,12 @@
 package vn.edu.hust.nmcnpm_20242_n3.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import vn.edu.hust.nmcnpm_20242_n3.dto.CategoryDTO;
+import vn.edu.hust.nmcnpm_20242_n3.service.CatalogVersionService;
 import vn.edu.hust.nmcnpm_20242_n3.service.CategoryService;
 
 import java.util.List;
@@ -13,15 +16,19 @@ import java.util.List;
 public class CategoryController {
 
     private final CategoryService categoryService;
+    private final CatalogVersionService catalogVersionService;
 
     @Autowired
-    public CategoryController(CategoryService categoryService) {
+    public CategoryController(CategoryService categoryService, CatalogVersionService catalogVersionService) {
         this.categoryService = categoryService;
+        this.catalogVersionService = catalogVersionService;
     }
 
     @GetMapping // Get All
-    public List<CategoryDTO> getAllCategories() {
-        return categoryService.getAllCategories();
+    public ResponseEntity<List<CategoryDTO>> getAllCategories(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = catalogVersionService.etag(CatalogVersionService.Resource.CATEGORIES);
+        return ConditionalGet.respond(ifNoneMatch, etag, categoryService::getAllCategories);
     }
 
     @GetMapping("/search/{name}") // Get By Name
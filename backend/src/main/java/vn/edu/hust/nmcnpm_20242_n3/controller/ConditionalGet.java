@@ -0,0 +1,36 @@
+package vn.edu.hust.nmcnpm_20242_n3.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import vn.edu.hust.nmcnpm_20242_n3.service.CatalogVersionService;
+
+import java.util.function.Supplier;
+
+/**
+ * Answers catalog GETs from their version ETag: 304 when If-None-Match still matches, without
+ * building the body, otherwise 200 with the tag. Callers take the tag before reading, so a
+ * concurrent write can only make it older than the body.
+ * "Cache-Control: no-cache" lets browsers keep the response and revalidate it, where the default
+ * security headers would forbid storing it.
+ */
+final class ConditionalGet {
+
+    private ConditionalGet() {
+    }
+
+    static <T> ResponseEntity<T> respond(String ifNoneMatch, String etag, Supplier<T> body) {
+        if (CatalogVersionService.matches(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
+        return ok(etag, body.get());
+    }
+
+    static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache()).build();
+    }
+
+    static <T> ResponseEntity<T> ok(String etag, T body) {
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(body);
+    }
+}
@@ -14,6 +14,7 @@ import vn.edu.hust.nmcnpm_20242_n3.entity.BookLoan;
 import vn.edu.hust.nmcnpm_20242_n3.repository.UserRepository;
 import vn.edu.hust.nmcnpm_20242_n3.repository.BookLoanRepository;
 import vn.edu.hust.nmcnpm_20242_n3.service.AuthenticationService;
+import vn.edu.hust.nmcnpm_20242_n3.service.FineAccrualService;
 import vn.edu.hust.nmcnpm_20242_n3.service.FineService;
 import vn.edu.hust.nmcnpm_20242_n3.dto.FineDTO;
 
@@ -30,6 +31,7 @@ public class FineController {
     private final UserRepository userRepository;
     private final BookLoanRepository bookLoanRepository;
     private final AuthenticationService authenticationService;
+    private final FineAccrualService fineAccrualService;
 
     @GetMapping
     @PreAuthorize("hasRole('ROLE_ADMIN') or hasRole('ROLE_STAFF')")
@@ -42,7 +44,7 @@ public class FineController {
     }
 
     @GetMapping("/{id}")
-    @PreAuthorize("hasRole('ROLE_ADMIN') or hasRole('ROLE_STAFF') or @authenticationService.isAuthorizedUser(#id)")
+    @PreAuthorize("hasRole('ROLE_ADMIN') or hasRole('ROLE_STAFF') or @authenticationService.isAuthorizedFine(#id)")
     public ResponseEntity<?> getFineById(@PathVariable String id) {
         try {
             Fine fine = fineService.getFineById(id);
@@ -88,6 +90,12 @@ public class FineController {
         }
     }
 
+    @PostMapping("/accrue") // Run overdue fine accrual now instead of waiting for the schedule
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<?> accrueOverdueFines() {
+        return new ResponseEntity<>(fineAccrualService.accrueOverdueFines(), HttpStatus.OK);
+    }
+
     @PutMapping("/update/{id}")
     @PreAuthorize("hasRole('ROLE_ADMIN') or hasRole('ROLE_STAFF')")
     public ResponseEntity<?> updateFine(@PathVariable String id, @RequestBody FineDTO fineDTO) {
@@ -3,9 +3,11 @@ package vn.edu.hust.nmcnpm_20242_n3.controller;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import vn.edu.hust.nmcnpm_20242_n3.dto.PublisherDTO;
+import vn.edu.hust.nmcnpm_20242_n3.service.CatalogVersionService;
 import vn.edu.hust.nmcnpm_20242_n3.service.PublisherService;
 
 import java.util.List;
@@ -15,15 +17,19 @@ import java.util.List;
 public class PublisherController {
 
     private final PublisherService publisherService;
+    private final CatalogVersionService catalogVersionService;
 
     @Autowired
-    public PublisherController(PublisherService publisherService) {
+    public PublisherController(PublisherService publisherService, CatalogVersionService catalogVersionService) {
         this.publisherService = publisherService;
+        this.catalogVersionService = catalogVersionService;
     }
 
     @GetMapping // Get All
-    public List<PublisherDTO> getAllPublishers() {
-        return publisherService.getAllPublishers();
+    public ResponseEntity<List<PublisherDTO>> getAllPublishers(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = catalogVersionService.etag(CatalogVersionService.Resource.PUBLISHERS);
+        return ConditionalGet.respond(ifNoneMatch, etag, publisherService::getAllPublishers);
     }
 
     @GetMapping("/search/{name}") // Get By Name
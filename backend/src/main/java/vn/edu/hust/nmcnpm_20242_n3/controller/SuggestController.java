@@ -0,0 +1,36 @@
+package vn.edu.hust.nmcnpm_20242_n3.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import vn.edu.hust.nmcnpm_20242_n3.dto.SuggestionDTO;
+import vn.edu.hust.nmcnpm_20242_n3.service.SuggestService;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/suggest")
+public class SuggestController {
+
+    private static final int MAX_LIMIT = 50;
+
+    private final SuggestService suggestService;
+
+    @Autowired
+    public SuggestController(SuggestService suggestService) {
+        this.suggestService = suggestService;
+    }
+
+    @GetMapping // Typeahead over titles, authors and publishers, most popular first
+    public ResponseEntity<?> suggest(@RequestParam(defaultValue = "") String q,
+                                     @RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            return new ResponseEntity<>("Limit must be between 1 and " + MAX_LIMIT, HttpStatus.BAD_REQUEST);
+        }
+        List<SuggestionDTO> suggestions = suggestService.suggest(q, limit).stream()
+                .map(suggestion -> new SuggestionDTO(suggestion.type().name(), suggestion.id(), suggestion.text()))
+                .toList();
+        return new ResponseEntity<>(suggestions, HttpStatus.OK);
+    }
+}
@@ -0,0 +1,23 @@
+package vn.edu.hust.nmcnpm_20242_n3.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Result of creating several copies of one book at once.
+ * The new copy ids are listed as inclusive ranges, which is a single range unless
+ * another request took ids from the same sequence in between.
+ */
+@AllArgsConstructor
+@Getter
+public class BookCopyBatchDTO implements Serializable {
+    private final int originalBookBookId;
+    private final int count;
+    private final List<IdRange> ids;
+
+    public record IdRange(int first, int last) implements Serializable {
+    }
+}
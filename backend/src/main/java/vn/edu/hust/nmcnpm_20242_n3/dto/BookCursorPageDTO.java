@@ -0,0 +1,20 @@
+package vn.edu.hust.nmcnpm_20242_n3.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a cursor-paged book listing.
+ * nextCursor is null on the last page; totalElements is only filled when requested.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookCursorPageDTO {
+    private List<BookDTO> books;
+    private String nextCursor;
+    private Long totalElements;
+}
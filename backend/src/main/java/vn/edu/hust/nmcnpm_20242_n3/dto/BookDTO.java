@@ -12,6 +12,8 @@ public class BookDTO {
     private int publisherId;
     private Set<Integer> authorIds;
     private Set<Integer> categoryIds;
+    private int totalCopies;
+    private int availableCopies;
 
     // Constructors
     public BookDTO() {
@@ -75,4 +77,20 @@ public class BookDTO {
     public void setCategoryIds(Set<Integer> categoryIds) {
         this.categoryIds = categoryIds;
     }
+
+    public int getTotalCopies() {
+        return totalCopies;
+    }
+
+    public void setTotalCopies(int totalCopies) {
+        this.totalCopies = totalCopies;
+    }
+
+    public int getAvailableCopies() {
+        return availableCopies;
+    }
+
+    public void setAvailableCopies(int availableCopies) {
+        this.availableCopies = availableCopies;
+    }
 }
\ No newline at end of file
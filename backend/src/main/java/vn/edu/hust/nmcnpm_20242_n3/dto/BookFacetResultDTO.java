@@ -0,0 +1,23 @@
+package vn.edu.hust.nmcnpm_20242_n3.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of faceted search results with the counts of every facet value.
+ * Facets are keyed "authors", "categories" and "publishers".
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookFacetResultDTO {
+    private List<BookDTO> books;
+    private int page;
+    private int size;
+    private long totalElements;
+    private Map<String, List<FacetCountDTO>> facets;
+}
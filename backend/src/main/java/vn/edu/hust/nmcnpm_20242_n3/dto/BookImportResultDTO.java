@@ -0,0 +1,27 @@
+package vn.edu.hust.nmcnpm_20242_n3.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk book import: counts, throughput and the rows that were rejected.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookImportResultDTO {
+    private int totalRows;
+    private int imported;
+    private int failed;
+    private double rowsPerSecond;
+    private List<RowError> errors;
+
+    /**
+     * A rejected row, numbered from 1 in the order of the data rows.
+     */
+    public record RowError(int row, String message) {
+    }
+}
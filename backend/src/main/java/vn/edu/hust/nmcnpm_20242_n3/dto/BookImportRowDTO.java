@@ -0,0 +1,21 @@
+package vn.edu.hust.nmcnpm_20242_n3.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One book of a bulk import. Publisher, authors and categories are referenced by name.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookImportRowDTO {
+    private String title;
+    private String description;
+    private String publisher;
+    private List<String> authors;
+    private List<String> categories;
+}
@@ -0,0 +1,18 @@
+package vn.edu.hust.nmcnpm_20242_n3.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.Serializable;
+
+/**
+ * Outcome of one decision of a batch approve/deny. {@code request} is null when the request does not exist.
+ */
+@AllArgsConstructor
+@Getter
+public class BookRequestBatchResultDTO implements Serializable {
+    private final String requestId;
+    private final boolean success;
+    private final String message;
+    private final BookRequestDTO request;
+}
@@ -0,0 +1,16 @@
+package vn.edu.hust.nmcnpm_20242_n3.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One decision of a batch approve/deny.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookRequestDecisionDTO {
+    private String requestId;
+    private boolean approve;
+}
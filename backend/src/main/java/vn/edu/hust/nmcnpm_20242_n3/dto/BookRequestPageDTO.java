@@ -0,0 +1,20 @@
+package vn.edu.hust.nmcnpm_20242_n3.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of the staff request queue.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookRequestPageDTO {
+    private List<BookRequestDTO> requests;
+    private int page;
+    private int size;
+    private long totalElements;
+}
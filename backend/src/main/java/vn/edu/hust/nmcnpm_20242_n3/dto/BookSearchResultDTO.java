@@ -0,0 +1,20 @@
+package vn.edu.hust.nmcnpm_20242_n3.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of ranked book search results.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookSearchResultDTO {
+    private List<BookDTO> books;
+    private int page;
+    private int size;
+    private long totalElements;
+}
@@ -0,0 +1,15 @@
+package vn.edu.hust.nmcnpm_20242_n3.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Number of matching books for one facet value, e.g. the "Fiction" category.
+ */
+@AllArgsConstructor
+@Getter
+public class FacetCountDTO {
+    private final int id;
+    private final String name;
+    private final int count;
+}
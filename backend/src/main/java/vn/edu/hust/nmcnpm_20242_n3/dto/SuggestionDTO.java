@@ -0,0 +1,17 @@
+package vn.edu.hust.nmcnpm_20242_n3.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.Serializable;
+
+/**
+ * One typeahead completion: a book title, author name or publisher name with the id to open it.
+ */
+@AllArgsConstructor
+@Getter
+public class SuggestionDTO implements Serializable {
+    private final String type;
+    private final int id;
+    private final String text;
+}
@@ -1,6 +1,7 @@
 package vn.edu.hust.nmcnpm_20242_n3.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 import java.util.Set;
 
 @Entity
@@ -36,6 +37,16 @@ public class Book {
     )
     private Set<Category> categories;
 
+    // Copy counters, changed only through atomic UPDATEs in BookAvailabilityService
+    // so a stale Book instance can never write them back
+    @ColumnDefault("0")
+    @Column(name = "total_copies", nullable = false, insertable = false, updatable = false)
+    private int totalCopies;
+
+    @ColumnDefault("0")
+    @Column(name = "available_copies", nullable = false, insertable = false, updatable = false)
+    private int availableCopies;
+
     // Constructors
     public Book() {
     }
@@ -88,4 +99,12 @@ public class Book {
     public void setCategories(Set<Category> categories) {
         this.categories = categories;
     }
+
+    public int getTotalCopies() {
+        return totalCopies;
+    }
+
+    public int getAvailableCopies() {
+        return availableCopies;
+    }
 }
\ No newline at end of file
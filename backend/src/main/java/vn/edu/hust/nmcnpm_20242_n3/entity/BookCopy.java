@@ -3,6 +3,7 @@ package vn.edu.hust.nmcnpm_20242_n3.entity;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 import vn.edu.hust.nmcnpm_20242_n3.constant.BookCopyStatusEnum;
 
 import java.util.HashSet;
@@ -15,8 +16,11 @@ import java.util.Set;
 @Entity
 @Table(name = "book_copies")
 public class BookCopy {
+    // Ids are handed out in blocks of 50 by the pooled optimizer, so bulk creation
+    // costs one sequence call per block instead of one per copy
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_copies_seq")
+    @SequenceGenerator(name = "book_copies_seq", sequenceName = "book_copies_seq", allocationSize = 50)
     private int id;
 
     @ManyToOne
@@ -26,6 +30,18 @@ public class BookCopy {
     @Enumerated(EnumType.STRING)
     private BookCopyStatusEnum status;
 
+    // Set while a random borrow holds this copy for its pending request. Claims filter on this
+    // column of the row they lock, so a claim committed meanwhile is seen by the lock re-check.
+    @ColumnDefault("false")
+    @Column(nullable = false)
+    private boolean reserved;
+
+    // Optimistic lock: concurrent changes to the same row fail instead of overwriting each other
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long version;
+
     @OneToMany(mappedBy = "bookCopy", cascade = {CascadeType.PERSIST, CascadeType.MERGE})
     private Set<BookLoan> bookLoans = new HashSet<>();
 
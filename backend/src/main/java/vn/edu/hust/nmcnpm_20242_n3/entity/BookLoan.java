@@ -4,17 +4,24 @@ import vn.edu.hust.nmcnpm_20242_n3.constant.BookLoanStatusEnum;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.util.Date;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 @Setter
 @Getter
 
 @Entity
-@Table(name = "book_loans")
+@Table(name = "book_loans", indexes = {
+        // Serves the overdue sweep: BORROWED loans in due date order
+        @Index(name = "book_loans_status_due_date_idx", columnList = "status, due_date"),
+        // Serves fine accrual: OVERDUE loans whose watermark is behind
+        @Index(name = "book_loans_status_fine_accrued_until_idx", columnList = "status, fine_accrued_until")
+})
 public class BookLoan {
     // define default loan duration to be 30 days
     @Column(name = "loan_duration", nullable = false)
@@ -43,6 +50,12 @@ public class BookLoan {
     @Enumerated(EnumType.STRING)
     private BookLoanStatusEnum status;
 
+    // Optimistic lock: concurrent changes to the same row fail instead of overwriting each other
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long version;
+
     @Column(name = "current_book_request_id", nullable = true)
     private String currentBookRequestId;
 
@@ -54,8 +67,13 @@ public class BookLoan {
     @Column(name = "updated_at")
     private Date UpdatedAt;
 
+    @Column(name = "due_date")
     private Date DueDate;
 
+    // Overdue fines are accrued up to here; set to the due date when the loan becomes OVERDUE
+    @Column(name = "fine_accrued_until")
+    private Date fineAccruedUntil;
+
     @OneToMany(mappedBy = "bookLoan", cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<Fine> fines;
 
@@ -64,17 +82,22 @@ public class BookLoan {
         LoanedAt = new Date();
         UpdatedAt = new Date();
         loan_duration = 30; // Set default loan duration to 30 days
-
+        DueDate = dueDateFrom(LoanedAt);
     }
 
     @PreUpdate
     protected void onUpdate() {
         UpdatedAt = new Date();
         if (LoanedAt != null) {
-            DueDate = new Date(LoanedAt.getTime() + (loan_duration * 24 * 60 * 60 * 1000)); // Set due date to loan duration
+            DueDate = dueDateFrom(LoanedAt); // Set due date to loan duration
         }
     }
 
+    // In long arithmetic: 30 days in milliseconds do not fit in an int
+    private Date dueDateFrom(Date loanedAt) {
+        return new Date(loanedAt.getTime() + TimeUnit.DAYS.toMillis(loan_duration));
+    }
+
     public BookLoan() {
     }
     public BookLoan(BookCopy bookcopy, User user) {
@@ -5,6 +5,7 @@ import vn.edu.hust.nmcnpm_20242_n3.constant.BookRequestTypeEnum;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -14,7 +15,11 @@ import java.time.LocalDateTime;
 @Getter
 
 @Entity
-@Table(name = "book_requests")
+@Table(name = "book_requests", indexes = {
+        // Serve the staff queue: filter by status or user, then page in creation order
+        @Index(name = "book_requests_status_created_at_idx", columnList = "status, created_at, id"),
+        @Index(name = "book_requests_user_created_at_idx", columnList = "user_id, created_at, id")
+})
 public class BookRequest {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
@@ -35,6 +40,12 @@ public class BookRequest {
     @Enumerated(EnumType.STRING)
     private BookRequestTypeEnum type;
 
+    // Optimistic lock: concurrent changes to the same row fail instead of overwriting each other
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long version;
+
     @CreationTimestamp
     @Column(name = "created_at")
     private LocalDateTime createdAt;
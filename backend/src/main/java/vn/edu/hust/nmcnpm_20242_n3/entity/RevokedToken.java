@@ -0,0 +1,37 @@
+package vn.edu.hust.nmcnpm_20242_n3.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Date;
+
+/**
+ * Revocation list entry for signed session tokens, shared by every node through the database.
+ * The id is either a single token id, or "user:&lt;userId&gt;" to revoke every token
+ * issued to that user before {@link #revokedAt}.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "revoked_tokens")
+public class RevokedToken {
+    @Id
+    private String id;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "revoked_at", nullable = false)
+    private Date revokedAt;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "expires_at", nullable = false)
+    private Date expiresAt;
+
+    public RevokedToken(String id, Date revokedAt, Date expiresAt) {
+        this.id = id;
+        this.revokedAt = revokedAt;
+        this.expiresAt = expiresAt;
+    }
+}
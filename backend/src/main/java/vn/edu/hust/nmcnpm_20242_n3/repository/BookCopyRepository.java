@@ -1,6 +1,8 @@
 package vn.edu.hust.nmcnpm_20242_n3.repository;
 
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import vn.edu.hust.nmcnpm_20242_n3.constant.BookCopyStatusEnum;
 import vn.edu.hust.nmcnpm_20242_n3.entity.BookCopy;
@@ -19,4 +21,16 @@ public interface BookCopyRepository extends CrudRepository<BookCopy, Integer> {
 
     List<BookCopy> findByOriginalBook_BookId(Integer bookId);
 
+    // Reserves one available, unreserved copy of the book without a pending borrowing request and
+    // returns its id. Copies locked by concurrent callers are skipped rather than waited on; a copy
+    // whose reservation committed after this statement started fails the re-check of the lock.
+    @Query(value = "UPDATE book_copies SET reserved = true, version = version + 1 WHERE id = ("
+            + " SELECT c.id FROM book_copies c WHERE c.original_book_book_id = :bookId"
+            + " AND c.status = 'AVAILABLE' AND NOT c.reserved"
+            + " AND NOT EXISTS (SELECT 1 FROM book_requests r WHERE r.book_copy_id = c.id"
+            + " AND r.status = 'PENDING' AND r.type = 'BORROWING')"
+            + " ORDER BY c.id LIMIT 1 FOR UPDATE SKIP LOCKED)"
+            + " RETURNING id", nativeQuery = true)
+    Optional<Integer> claimAvailableCopy(@Param("bookId") int bookId);
+
 }
@@ -1,5 +1,7 @@
 package vn.edu.hust.nmcnpm_20242_n3.repository;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,6 +18,32 @@ import vn.edu.hust.nmcnpm_20242_n3.entity.User;
 
 @Repository
 public interface BookLoanRepository extends CrudRepository<BookLoan, String> {
+    // Rows of [bookId, number of loans] for the popularity of typeahead suggestions
+    @Query("SELECT c.originalBook.bookId, COUNT(l) FROM BookLoan l JOIN l.bookCopy c GROUP BY c.originalBook.bookId")
+    List<Object[]> countLoansPerBook();
+
+    // Marks at most :limit loans that are past due and returns their ids; rows locked elsewhere are skipped, so fewer may come back
+    @Query(value = "WITH due AS (SELECT id FROM book_loans"
+            + "   WHERE status = 'BORROWED' AND due_date < :now"
+            + "   ORDER BY due_date LIMIT :limit FOR UPDATE SKIP LOCKED)"
+            + " UPDATE book_loans l SET status = 'OVERDUE', fine_accrued_until = l.due_date,"
+            + "   version = l.version + 1, updated_at = :now"
+            + " FROM due WHERE l.id = due.id"
+            + " RETURNING l.id",
+            nativeQuery = true)
+    List<String> markOverdue(@Param("now") Date now, @Param("limit") int limit);
+
+    @Query(value = "UPDATE book_loans SET status = 'OVERDUE', fine_accrued_until = due_date,"
+            + "   version = version + 1, updated_at = :now"
+            + " WHERE id IN :ids AND status = 'BORROWED'"
+            + " RETURNING id",
+            nativeQuery = true)
+    List<String> markOverdueByIds(@Param("ids") Collection<String> ids, @Param("now") Date now);
+
+    // Rows of [loanId, due date] of the BORROWED loans due in [from, until)
+    @Query("SELECT l.id, l.DueDate FROM BookLoan l WHERE l.status = BORROWED AND l.DueDate >= :from AND l.DueDate < :until")
+    List<Object[]> findBorrowedDueBetween(@Param("from") Date from, @Param("until") Date until);
+
     @Query("SELECT b FROM BookLoan b WHERE b.status = :status")
     List<BookLoan> findByStatus(@Param("status") BookLoanStatusEnum status);
 
@@ -29,6 +57,12 @@ public interface BookLoanRepository extends CrudRepository<BookLoan, String> {
             @Param("status") BookLoanStatusEnum status);
 
 
+    // The loan of the copy that the user still has to return, whether or not it is late
+    @Query("SELECT b FROM BookLoan b WHERE b.user.id = :userId AND b.bookCopy.id = :bookCopyId"
+            + " AND b.status IN (BORROWED, OVERDUE)")
+    Optional<BookLoan> findOpenByBookCopyIdAndUserId(@Param("userId") String userId,
+            @Param("bookCopyId") Integer bookCopyId);
+
     @Query("SELECT bl.bookCopy.originalBook FROM BookLoan bl WHERE bl.user.id = ?1 AND bl.status = 'BORROWED'")
     List<Book> findBorrowedBooksByUserId(String userId);
 
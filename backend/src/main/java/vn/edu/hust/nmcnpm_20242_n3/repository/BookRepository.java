@@ -1,6 +1,11 @@
 package vn.edu.hust.nmcnpm_20242_n3.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -8,15 +13,73 @@ import vn.edu.hust.nmcnpm_20242_n3.entity.Book;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface BookRepository extends CrudRepository<Book, Integer> {
+    // Full-text, substring or trigram-similar match on the unaccented text, plus optional id filters.
+    // Relies on the column, function and indexes created by search-postgres.sql.
+    String FULL_TEXT_FILTER = " FROM books b"
+            + " WHERE (:query = ''"
+            + "   OR b.search_vector @@ websearch_to_tsquery('simple', f_unaccent(:query))"
+            + "   OR f_unaccent(lower(b.title)) LIKE '%' || f_unaccent(lower(:query)) || '%'"
+            + "   OR f_unaccent(lower(b.title)) % f_unaccent(lower(:query)))"
+            + " AND (CAST(:authorId AS integer) IS NULL OR EXISTS"
+            + "   (SELECT 1 FROM books_authors ba WHERE ba.book_id = b.book_id AND ba.author_id = :authorId))"
+            + " AND (CAST(:categoryId AS integer) IS NULL OR EXISTS"
+            + "   (SELECT 1 FROM books_categories bc WHERE bc.book_id = b.book_id AND bc.category_id = :categoryId))"
+            + " AND (CAST(:publisherId AS integer) IS NULL OR b.publisher_id = :publisherId)";
+
     Optional<Book> findByTitle(String title);
 
+    @EntityGraph(attributePaths = "publisher")
     Page<Book> findAll(Pageable pageable);
 
+    // The publisher comes in the same row, instead of one batched lookup per 100 publishers
+    @Query("SELECT b FROM Book b LEFT JOIN FETCH b.publisher ORDER BY b.bookId")
+    List<Book> findAllWithPublisher();
+
+    int EXPORT_FETCH_SIZE = 500;
+
+    // Forward-only cursor over the whole catalog, must be consumed inside a transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT b FROM Book b ORDER BY b.bookId")
+    Stream<Book> streamAllByOrderByBookIdAsc();
+
+    // Keyset pages: seek past the last key seen instead of OFFSET, and no count query
+    @EntityGraph(attributePaths = "publisher")
+    List<Book> findByOrderByBookIdAsc(Pageable pageable);
+
+    @EntityGraph(attributePaths = "publisher")
+    List<Book> findByBookIdGreaterThanOrderByBookIdAsc(int bookId, Pageable pageable);
+
+    @EntityGraph(attributePaths = "publisher")
+    List<Book> findByOrderByBookIdDesc(Pageable pageable);
+
+    @EntityGraph(attributePaths = "publisher")
+    List<Book> findByBookIdLessThanOrderByBookIdDesc(int bookId, Pageable pageable);
+
+    // Titles are unique, so the title alone is a stable seek key
+    @EntityGraph(attributePaths = "publisher")
+    List<Book> findByOrderByTitleAsc(Pageable pageable);
+
+    @EntityGraph(attributePaths = "publisher")
+    List<Book> findByTitleGreaterThanOrderByTitleAsc(String title, Pageable pageable);
+
+    // Relative update, so concurrent changes to the same book never overwrite each other
+    @Modifying
+    @Query("UPDATE Book b SET b.totalCopies = b.totalCopies + :total, b.availableCopies = b.availableCopies + :available WHERE b.bookId = :bookId")
+    int adjustCopyCounts(@Param("bookId") int bookId, @Param("total") int total, @Param("available") int available);
+
+    @Query("SELECT b.title FROM Book b WHERE b.title IN :titles")
+    List<String> findExistingTitles(@Param("titles") Collection<String> titles);
+
     @Query("SELECT b FROM Book b WHERE b.title LIKE %:title%")
     List<Book> searchByTitle(@Param("title") String title);
 
@@ -28,4 +91,49 @@ public interface BookRepository extends CrudRepository<Book, Integer> {
 
     @Query("SELECT b FROM Book b JOIN b.authors a WHERE a.id = :authorId")
     List<Book> searchByAuthorId(@Param("authorId") Integer authorId);
+
+    @Query(value = "SELECT b.*" + FULL_TEXT_FILTER
+            + " ORDER BY ts_rank_cd(b.search_vector, websearch_to_tsquery('simple', f_unaccent(:query)))"
+            + "   + similarity(f_unaccent(lower(b.title)), f_unaccent(lower(:query))) DESC, b.book_id",
+            countQuery = "SELECT count(*)" + FULL_TEXT_FILTER,
+            nativeQuery = true)
+    Page<Book> fullTextSearch(@Param("query") String query,
+                              @Param("authorId") Integer authorId,
+                              @Param("categoryId") Integer categoryId,
+                              @Param("publisherId") Integer publisherId,
+                              Pageable pageable);
+
+    // Rows of [bookId, title, publisher id, publisher name] for the search index, in id order
+    @Query("SELECT b.bookId, b.title, p.id, p.name FROM Book b LEFT JOIN b.publisher p WHERE b.bookId > :afterId ORDER BY b.bookId")
+    List<Object[]> findIndexRowsAfter(@Param("afterId") int afterId, Pageable pageable);
+
+    // Same rows for the given books, to re-index them after a related name changed
+    @Query("SELECT b.bookId, b.title, p.id, p.name FROM Book b LEFT JOIN b.publisher p WHERE b.bookId IN :bookIds")
+    List<Object[]> findIndexRowsByIds(@Param("bookIds") Collection<Integer> bookIds);
+
+    @Query("SELECT b.bookId FROM Book b JOIN b.authors a WHERE a.id = :authorId")
+    List<Integer> findIdsByAuthorId(@Param("authorId") int authorId);
+
+    @Query("SELECT b.bookId FROM Book b JOIN b.categories c WHERE c.id = :categoryId")
+    List<Integer> findIdsByCategoryId(@Param("categoryId") int categoryId);
+
+    @Query("SELECT b.bookId FROM Book b WHERE b.publisher.id = :publisherId")
+    List<Integer> findIdsByPublisherId(@Param("publisherId") int publisherId);
+
+    // Rows of [bookId, author id, author name]
+    @Query("SELECT b.bookId, a.id, a.name FROM Book b JOIN b.authors a WHERE b.bookId IN :bookIds")
+    List<Object[]> findAuthorNamesByBookIds(@Param("bookIds") Collection<Integer> bookIds);
+
+    // Rows of [bookId, category id, category name]
+    @Query("SELECT b.bookId, c.id, c.name FROM Book b JOIN b.categories c WHERE b.bookId IN :bookIds")
+    List<Object[]> findCategoryNamesByBookIds(@Param("bookIds") Collection<Integer> bookIds);
+
+    // Rows of [bookId, author id]. The ids are bound as one array parameter, so any number of
+    // books is read in a single statement without running into the bind parameter limit
+    @Query(value = "SELECT ba.book_id, ba.author_id FROM books_authors ba WHERE ba.book_id = ANY(:bookIds)", nativeQuery = true)
+    List<Object[]> findAuthorIdsByBookIds(@Param("bookIds") Integer[] bookIds);
+
+    // Rows of [bookId, category id]
+    @Query(value = "SELECT bc.book_id, bc.category_id FROM books_categories bc WHERE bc.book_id = ANY(:bookIds)", nativeQuery = true)
+    List<Object[]> findCategoryIdsByBookIds(@Param("bookIds") Integer[] bookIds);
 }
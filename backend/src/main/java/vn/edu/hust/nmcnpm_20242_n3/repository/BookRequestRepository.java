@@ -4,21 +4,87 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import vn.edu.hust.nmcnpm_20242_n3.constant.BookRequestStatusEnum;
 import vn.edu.hust.nmcnpm_20242_n3.constant.BookRequestTypeEnum;
+import vn.edu.hust.nmcnpm_20242_n3.dto.BookRequestDTO;
 import vn.edu.hust.nmcnpm_20242_n3.entity.BookRequest;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface BookRequestRepository extends CrudRepository<BookRequest, String> {
+    // Every request names its user; the title falls back to the loan's book for requests without a copy
+    String QUEUE_SELECT = "SELECT new vn.edu.hust.nmcnpm_20242_n3.dto.BookRequestDTO("
+            + " r.id, l.id, COALESCE(b.title, lb.title), COALESCE(u.username, lu.username),"
+            + " r.status, r.type, r.createdAt, r.updatedAt)";
+    String QUEUE_FILTER = " FROM BookRequest r"
+            + " LEFT JOIN r.bookLoan l LEFT JOIN l.bookCopy lc LEFT JOIN lc.originalBook lb LEFT JOIN l.user lu"
+            + " LEFT JOIN r.bookCopy c LEFT JOIN c.originalBook b LEFT JOIN r.user u"
+            + " WHERE (:type IS NULL OR r.type = :type)"
+            + " AND (:userId IS NULL OR r.user.id = :userId)"
+            + " AND (:from IS NULL OR r.createdAt >= :from)"
+            + " AND (:to IS NULL OR r.createdAt < :to)";
+    String QUEUE_ORDER = " ORDER BY r.createdAt, r.id LIMIT :limit OFFSET :offset";
+
+    /**
+     * A slice of the requests in one status, oldest first, read in the order of the (status, created_at, id) index.
+     */
+    @Query(QUEUE_SELECT + QUEUE_FILTER + " AND r.status = :status" + QUEUE_ORDER)
+    List<BookRequestDTO> findQueueWithStatus(@Param("status") BookRequestStatusEnum status,
+                                             @Param("type") BookRequestTypeEnum type,
+                                             @Param("userId") String userId,
+                                             @Param("from") LocalDateTime from,
+                                             @Param("to") LocalDateTime to,
+                                             @Param("offset") int offset,
+                                             @Param("limit") int limit);
+
+    /**
+     * A slice of the requests in any other status, oldest first, read in the order of the partial
+     * {@code book_requests_settled_created_at_idx} index when the excluded status is PENDING.
+     */
+    @Query(QUEUE_SELECT + QUEUE_FILTER + " AND r.status <> :status" + QUEUE_ORDER)
+    List<BookRequestDTO> findQueueWithoutStatus(@Param("status") BookRequestStatusEnum status,
+                                                @Param("type") BookRequestTypeEnum type,
+                                                @Param("userId") String userId,
+                                                @Param("from") LocalDateTime from,
+                                                @Param("to") LocalDateTime to,
+                                                @Param("offset") int offset,
+                                                @Param("limit") int limit);
+
+    @Query("SELECT COUNT(r)" + QUEUE_FILTER + " AND r.status = :status")
+    long countQueueWithStatus(@Param("status") BookRequestStatusEnum status,
+                              @Param("type") BookRequestTypeEnum type,
+                              @Param("userId") String userId,
+                              @Param("from") LocalDateTime from,
+                              @Param("to") LocalDateTime to);
+
+    @Query("SELECT COUNT(r)" + QUEUE_FILTER + " AND r.status <> :status")
+    long countQueueWithoutStatus(@Param("status") BookRequestStatusEnum status,
+                                 @Param("type") BookRequestTypeEnum type,
+                                 @Param("userId") String userId,
+                                 @Param("from") LocalDateTime from,
+                                 @Param("to") LocalDateTime to);
+
     @Query("SELECT b FROM BookRequest b WHERE b.bookCopy.id = :bookCopyId and b.user.id = :userId and b.status = PENDING and b.type=:type")
     List<BookRequest> checkForOverlappingRequest(@Param("bookCopyId") Integer bookCopyIdd,
             @Param("userId") String userId, @Param("type") BookRequestTypeEnum type);
 
+    @Query("SELECT COUNT(b) > 0 FROM BookRequest b WHERE b.bookCopy.originalBook.bookId = :bookId and b.user.id = :userId and b.status = PENDING and b.type=:type")
+    boolean existsPendingRequestForBook(@Param("bookId") Integer bookId, @Param("userId") String userId,
+            @Param("type") BookRequestTypeEnum type);
+
     @Query("SELECT b FROM BookRequest b WHERE b.user.id = :userId")
     List<BookRequest> findByUserId(@Param("userId") String userId);
 
+    @Query("SELECT r FROM BookRequest r LEFT JOIN FETCH r.bookCopy c LEFT JOIN FETCH c.originalBook LEFT JOIN FETCH r.bookLoan LEFT JOIN FETCH r.user WHERE r.id IN :ids")
+    List<BookRequest> findAllForProcessing(@Param("ids") Collection<String> ids);
+
     List<BookRequest> findAll();
     Optional<BookRequest> findById(String id);
+
+    @Query("SELECT b.user.id FROM BookRequest b WHERE b.id = :id")
+    Optional<String> findOwnerIdById(@Param("id") String id);
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package vn.edu.hust.nmcnpm_20242_n3.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -8,9 +9,38 @@ import vn.edu.hust.nmcnpm_20242_n3.entity.Fine;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface FineRepository extends JpaRepository<Fine, String> {
+    /**
+     * Fines at most {@code limit} OVERDUE loans for the whole days between their watermark and
+     * {@code now}, and moves each watermark forward by exactly those days, in one statement.
+     * Loans are locked with SKIP LOCKED, so concurrent runs never fine the same days twice; loans
+     * locked elsewhere are left out, so fewer than {@code limit} can be fined while others are behind.
+     *
+     * @return The number of fines written; 0 once no unlocked loan is behind.
+     */
+    @Modifying
+    @Query(value = "WITH behind AS (SELECT id, user_id, COALESCE(fine_accrued_until, due_date) AS since"
+            + "   FROM book_loans"
+            + "   WHERE status = 'OVERDUE' AND due_date IS NOT NULL"
+            + "   AND (fine_accrued_until <= :cutoff OR fine_accrued_until IS NULL AND due_date <= :cutoff)"
+            + "   ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED),"
+            + " accrued AS (SELECT id, user_id, since,"
+            + "   CAST(floor(extract(epoch FROM (CAST(:now AS timestamp) - since)) / 86400) AS integer) AS days"
+            + "   FROM behind),"
+            + " moved AS (UPDATE book_loans l SET fine_accrued_until = a.since + a.days * interval '1 day',"
+            + "   version = l.version + 1"
+            + "   FROM accrued a WHERE l.id = a.id)"
+            + " INSERT INTO fines (id, user_id, book_loan_id, amount, created_at, updated_at, description)"
+            + " SELECT CAST(gen_random_uuid() AS varchar), a.user_id, a.id, a.days * :dailyRate, :now, :now,"
+            + "   'Overdue fine for ' || a.days || ' day(s) from ' || to_char(a.since, 'YYYY-MM-DD HH24:MI')"
+            + " FROM accrued a",
+            nativeQuery = true)
+    int accrueOverdueFines(@Param("now") Date now, @Param("cutoff") Date cutoff,
+                           @Param("dailyRate") double dailyRate, @Param("limit") int limit);
+
     @Query("SELECT f FROM Fine f WHERE f.bookLoan.user.id = :userId")
     List<Fine> findByUserId(@Param("userId") String userId);
 
@@ -19,4 +49,7 @@ public interface FineRepository extends JpaRepository<Fine, String> {
     List<Fine> findByAmountGreaterThan(double amount);
 
     List<Fine> findByCreatedAtBetween(Date startDate, Date endDate);
+
+    @Query("SELECT f.user.id FROM Fine f WHERE f.id = :id")
+    Optional<String> findOwnerIdById(@Param("id") String id);
 }
\ No newline at end of file
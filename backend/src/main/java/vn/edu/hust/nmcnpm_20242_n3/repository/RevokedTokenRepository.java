@@ -0,0 +1,14 @@
+package vn.edu.hust.nmcnpm_20242_n3.repository;
+
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+import vn.edu.hust.nmcnpm_20242_n3.entity.RevokedToken;
+
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends CrudRepository<RevokedToken, String> {
+    List<RevokedToken> findByRevokedAtAfter(Date since);
+    long deleteByExpiresAtBefore(Date date);
+}
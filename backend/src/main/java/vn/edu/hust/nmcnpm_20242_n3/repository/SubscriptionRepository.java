@@ -1,10 +1,13 @@
 package vn.edu.hust.nmcnpm_20242_n3.repository;
 
 
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import vn.edu.hust.nmcnpm_20242_n3.entity.Subscription;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,7 +16,11 @@ public interface SubscriptionRepository extends CrudRepository<Subscription, Int
 
     Optional<Subscription> findByBookCopyIdAndUserId(Integer bookCopyId, String userId);
     List<Subscription> findAllByBookCopyIdAndActive(Integer bookCopyId, boolean active);
+    List<Subscription> findAllByBookCopyIdInAndActive(Collection<Integer> bookCopyIds, boolean active);
     List<Subscription> findAllByActive(boolean b);
     List<Subscription> findAllByUserId(String userId);
     Optional<Subscription> findById(Integer id);
+
+    @Query("SELECT s.user.id FROM Subscription s WHERE s.id = :id")
+    Optional<String> findOwnerIdById(@Param("id") Integer id);
 }
\ No newline at end of file
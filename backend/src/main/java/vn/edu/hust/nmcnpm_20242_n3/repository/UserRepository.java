@@ -1,5 +1,8 @@
 package vn.edu.hust.nmcnpm_20242_n3.repository;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 
@@ -15,10 +18,14 @@ import java.util.Optional;
 public interface UserRepository extends CrudRepository<User, String> {
     @Query("SELECT u FROM User u WHERE u.role.name = :role ORDER BY u.CreatedAt ASC")
     List<User> findByRole_Name(RoleEnum role);
+    Slice<User> findAllBy(Pageable pageable);
     Optional<User> findByEmail(String email);
     Optional<User> findByUserName(String userName);
     boolean existsByEmail(String email);
     boolean existsByUserName(String userName);
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.userName = :userName")
+    int updatePasswordByUserName(@Param("userName") String userName, @Param("password") String password);
     @Query("SELECT u FROM User u " +
             "WHERE (:id IS NULL OR u.id LIKE %:id%) " +
             "AND (:email IS NULL OR u.email LIKE %:email%) " +
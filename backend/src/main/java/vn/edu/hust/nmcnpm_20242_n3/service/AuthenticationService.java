@@ -3,14 +3,10 @@ package vn.edu.hust.nmcnpm_20242_n3.service;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
-import vn.edu.hust.nmcnpm_20242_n3.entity.BookRequest;
-import vn.edu.hust.nmcnpm_20242_n3.entity.Fine;
-import vn.edu.hust.nmcnpm_20242_n3.entity.Subscription;
 import vn.edu.hust.nmcnpm_20242_n3.entity.User;
 import vn.edu.hust.nmcnpm_20242_n3.repository.BookRequestRepository;
 import vn.edu.hust.nmcnpm_20242_n3.repository.FineRepository;
 import vn.edu.hust.nmcnpm_20242_n3.repository.SubscriptionRepository;
-import vn.edu.hust.nmcnpm_20242_n3.repository.UserRepository;
 
 import java.util.Optional;
 
@@ -18,16 +14,16 @@ import java.util.Optional;
  * Service for handling authentication-related operations.
  * This service provides methods to check if the current user is authorized
  * to access certain resources based on their user ID.
+ * The user ID is read from the authenticated principal, so self-access checks
+ * need no query and ownership checks only fetch the owner ID of the resource.
  */
 @Service
 public class AuthenticationService {
-    private final UserRepository userRepository;
     private final BookRequestRepository bookRequestRepository;
     private final FineRepository fineRepository;
     private final SubscriptionRepository subscriptionRepository;
 
-    public AuthenticationService(UserRepository userRepository, BookRequestRepository bookRequestRepository, FineRepository fineRepository, SubscriptionRepository subscriptionRepository) {
-        this.userRepository = userRepository;
+    public AuthenticationService(BookRequestRepository bookRequestRepository, FineRepository fineRepository, SubscriptionRepository subscriptionRepository) {
         this.bookRequestRepository = bookRequestRepository;
         this.fineRepository = fineRepository;
         this.subscriptionRepository = subscriptionRepository;
@@ -41,17 +37,8 @@ public class AuthenticationService {
      * @return true if the current user is authorized, false otherwise.
      */
     public boolean isAuthorizedUser(String userId) {
-        // Get current authenticated user
-        Authentication authentication = getAuthentication();
-        if (authentication == null) return false;
-
-        String username = authentication.getName();
-        Optional<User> userOpt = userRepository.findByUserName(username);
-        if (userOpt.isEmpty()) return false;
-        User user = userOpt.get();
-
         // Check if the user is the one being accessed
-        return user.getId().equals(userId);
+        return getCurrentUserId().map(id -> id.equals(userId)).orElse(false);
     }
 
     /**
@@ -62,12 +49,13 @@ public class AuthenticationService {
      * @return true if the current user is authorized, false otherwise.
      */
     public boolean isAuthorizedRequest(String requestId) {
-        Optional<BookRequest> requestOpt = bookRequestRepository.findById(requestId);
-        if (requestOpt.isEmpty()) return false;
-        BookRequest request = requestOpt.get();
+        Optional<String> currentUserId = getCurrentUserId();
+        if (currentUserId.isEmpty()) return false;
 
         // Check if the user is the one being accessed
-        return request.getUser().getUsername().equals(getCurrentUsername());
+        return bookRequestRepository.findOwnerIdById(requestId)
+                .map(ownerId -> ownerId.equals(currentUserId.get()))
+                .orElse(false);
     }
 
     /**
@@ -78,12 +66,13 @@ public class AuthenticationService {
      * @return true if the current user is authorized, false otherwise.
      */
     public boolean isAuthorizedFine(String fineId) {
-        Optional<Fine> fineOpt = fineRepository.findById(fineId);
-        if (fineOpt.isEmpty()) return false;
-        Fine fine = fineOpt.get();
+        Optional<String> currentUserId = getCurrentUserId();
+        if (currentUserId.isEmpty()) return false;
 
         // Check if the user is the one being accessed
-        return fine.getUser().getUsername().equals(getCurrentUsername());
+        return fineRepository.findOwnerIdById(fineId)
+                .map(ownerId -> ownerId.equals(currentUserId.get()))
+                .orElse(false);
     }
 
     /**
@@ -94,12 +83,33 @@ public class AuthenticationService {
      * @return true if the current user is authorized, false otherwise.
      */
     public boolean isAuthorizedSubscription(Integer subscriptionId) {
-        Optional<Subscription> subscriptionOpt = subscriptionRepository.findById(subscriptionId);
-        if (subscriptionOpt.isEmpty()) return false;
-        Subscription subscription = subscriptionOpt.get();
+        Optional<String> currentUserId = getCurrentUserId();
+        if (currentUserId.isEmpty()) return false;
 
         // Check if the user is the one being accessed
-        return subscription.getUser().getUsername().equals(getCurrentUsername());
+        return subscriptionRepository.findOwnerIdById(subscriptionId)
+                .map(ownerId -> ownerId.equals(currentUserId.get()))
+                .orElse(false);
+    }
+
+    /**
+     * Retrieves the ID of the currently authenticated user from the principal,
+     * without touching the database.
+     *
+     * @return The user ID, or empty if not authenticated or the principal carries no ID.
+     */
+    public Optional<String> getCurrentUserId() {
+        Authentication authentication = getAuthentication();
+        if (authentication == null) return Optional.empty();
+
+        Object principal = authentication.getPrincipal();
+        if (principal instanceof User user) {
+            return Optional.ofNullable(user.getId());
+        }
+        if (principal instanceof SessionTokenService.SessionToken token) {
+            return Optional.ofNullable(token.userId());
+        }
+        return Optional.empty();
     }
 
     /**
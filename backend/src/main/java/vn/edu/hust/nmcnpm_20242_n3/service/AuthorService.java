@@ -2,7 +2,11 @@ package vn.edu.hust.nmcnpm_20242_n3.service;
 
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
+import vn.edu.hust.nmcnpm_20242_n3.configuration.CacheConfig;
 import vn.edu.hust.nmcnpm_20242_n3.dto.AuthorDTO;
 import vn.edu.hust.nmcnpm_20242_n3.entity.Author;
 import vn.edu.hust.nmcnpm_20242_n3.entity.Book;
@@ -15,12 +19,20 @@ import java.util.Optional;
 public class AuthorService {
 
     private final AuthorRepository authorRepository;
+    private final CatalogVersionService catalogVersionService;
+    private final SuggestService suggestService;
+    private final BookIndexService bookIndexService;
 
     @Autowired
-    public AuthorService(AuthorRepository authorRepository) {
+    public AuthorService(AuthorRepository authorRepository, CatalogVersionService catalogVersionService,
+                        SuggestService suggestService, BookIndexService bookIndexService) {
         this.authorRepository = authorRepository;
+        this.catalogVersionService = catalogVersionService;
+        this.suggestService = suggestService;
+        this.bookIndexService = bookIndexService;
     }
 
+    @Cacheable(cacheNames = CacheConfig.AUTHORS, key = CacheConfig.ALL)
     public List<AuthorDTO> getAllAuthors() {
         List<Author> authors = (List<Author>) authorRepository.findAll();
 
@@ -35,37 +47,62 @@ public class AuthorService {
                 .map(this::convertToDTO);
     }
 
+    @Cacheable(cacheNames = CacheConfig.AUTHOR, key = "#id")
     public AuthorDTO findById(int id) {
         return authorRepository.findById(id).map(this::convertToDTO)
                 .orElseThrow(() -> new IllegalArgumentException("Author not found with ID: " + id));
     }
 
+    @CacheEvict(cacheNames = CacheConfig.AUTHORS, key = CacheConfig.ALL)
     public AuthorDTO addAuthor(AuthorDTO dto) {
         if (authorRepository.existsByName(dto.getName())) {
             throw new IllegalArgumentException("Author with name " + dto.getName() + " already exists");
         }
         Author author = new Author();
         author.setName(dto.getName());
-        return convertToDTO(authorRepository.save(author));
+        Author saved = authorRepository.save(author);
+        catalogVersionService.bump(CatalogVersionService.Resource.AUTHORS);
+        suggestService.put(SuggestionIndex.Type.AUTHOR, saved.getId(), saved.getName());
+        return convertToDTO(saved);
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.AUTHORS, key = CacheConfig.ALL),
+            @CacheEvict(cacheNames = CacheConfig.AUTHOR, key = "#id")
+    })
     public AuthorDTO updateById(int id, AuthorDTO dto) {
         Author existingAuthor = authorRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Author not found"));
         existingAuthor.setName(dto.getName());
-        return convertToDTO(authorRepository.save(existingAuthor));
+        Author saved = authorRepository.save(existingAuthor);
+        catalogVersionService.bump(CatalogVersionService.Resource.AUTHORS);
+        suggestService.put(SuggestionIndex.Type.AUTHOR, saved.getId(), saved.getName());
+        // Books are searchable by their authors' names
+        bookIndexService.reindexBooksWith(BookFacetIndex.Facet.AUTHOR, saved.getId());
+        return convertToDTO(saved);
     }
 
+    // Cached books list their author ids, so they are dropped as well
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.AUTHORS, key = CacheConfig.ALL),
+            @CacheEvict(cacheNames = CacheConfig.AUTHOR, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.BOOK, allEntries = true)
+    })
     @Transactional
     public void deleteById(int id) {
         Author author = authorRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Author with ID " + id + " does not exist"));
 
+        bookIndexService.reindexBooksWith(BookFacetIndex.Facet.AUTHOR, id);
         for (Book book : author.getBooks()) {
             book.getAuthors().remove(author);
         }
 
         authorRepository.deleteById(id);
+        suggestService.remove(SuggestionIndex.Type.AUTHOR, id);
+        catalogVersionService.bump(CatalogVersionService.Resource.AUTHORS);
+        // Books list the ids of their authors
+        catalogVersionService.bumpAllBooks();
     }
 
     private AuthorDTO convertToDTO(Author author) {
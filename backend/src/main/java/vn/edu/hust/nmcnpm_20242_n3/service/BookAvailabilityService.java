@@ -0,0 +1,51 @@
+package vn.edu.hust.nmcnpm_20242_n3.service;
+
+import jakarta.transaction.Transactional;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.stereotype.Service;
+import vn.edu.hust.nmcnpm_20242_n3.configuration.CacheConfig;
+import vn.edu.hust.nmcnpm_20242_n3.repository.BookRepository;
+
+/**
+ * Keeps the total and available copy counters on {@code books} in step with copy changes.
+ * Every method is a single relative UPDATE that joins the caller's transaction, so the counters
+ * commit or roll back together with the copy change that caused them.
+ * The cached book is evicted when that transaction commits, not when the method returns, so a
+ * concurrent read cannot cache the old counters in between.
+ */
+@Service
+public class BookAvailabilityService {
+
+    private final BookRepository bookRepository;
+    private final CatalogVersionService catalogVersionService;
+
+    public BookAvailabilityService(BookRepository bookRepository, CatalogVersionService catalogVersionService) {
+        this.bookRepository = bookRepository;
+        this.catalogVersionService = catalogVersionService;
+    }
+
+    @CacheEvict(cacheNames = CacheConfig.BOOK, key = "#bookId")
+    @Transactional
+    public void copiesAdded(int bookId, int count) {
+        adjust(bookId, count, count);
+    }
+
+    @CacheEvict(cacheNames = CacheConfig.BOOK, key = "#bookId")
+    @Transactional
+    public void copyRemoved(int bookId, boolean wasAvailable) {
+        adjust(bookId, -1, wasAvailable ? -1 : 0);
+    }
+
+    // Net change of available copies from borrows and returns, one update per book
+    @CacheEvict(cacheNames = CacheConfig.BOOK, key = "#bookId")
+    @Transactional
+    public void availableChanged(int bookId, int delta) {
+        adjust(bookId, 0, delta);
+    }
+
+    private void adjust(int bookId, int total, int available) {
+        bookRepository.adjustCopyCounts(bookId, total, available);
+        // Book responses carry the counters
+        catalogVersionService.bumpBook(bookId);
+    }
+}
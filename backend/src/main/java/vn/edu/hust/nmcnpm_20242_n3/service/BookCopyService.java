@@ -4,8 +4,10 @@ package vn.edu.hust.nmcnpm_20242_n3.service;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import vn.edu.hust.nmcnpm_20242_n3.constant.BookLoanStatusEnum;
+import vn.edu.hust.nmcnpm_20242_n3.dto.BookCopyBatchDTO;
 import vn.edu.hust.nmcnpm_20242_n3.dto.BookCopyDTO;
 import vn.edu.hust.nmcnpm_20242_n3.entity.Book;
 import vn.edu.hust.nmcnpm_20242_n3.entity.BookCopy;
@@ -17,6 +19,7 @@ import vn.edu.hust.nmcnpm_20242_n3.repository.BookLoanRepository;
 import vn.edu.hust.nmcnpm_20242_n3.repository.BookRepository;
 import vn.edu.hust.nmcnpm_20242_n3.repository.BookRequestRepository;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
@@ -35,6 +38,11 @@ public class BookCopyService {
     private BookLoanRepository bookLoanRepository;
     @Autowired
     private BookRequestRepository bookRequestRepository;
+    @Autowired
+    private BookAvailabilityService bookAvailabilityService;
+
+    @Value("${book-copy.batch.max-count:1000}")
+    private int maxBatchCount;
 
     public List<BookCopyDTO> getAllAvailableBookCopies() {
         return bookCopyRepository.findByStatus(BookCopyStatusEnum.valueOf(BookCopyStatusEnum.AVAILABLE.name())).stream()
@@ -61,6 +69,7 @@ public class BookCopyService {
         );
     }
 
+    @Transactional
     public BookCopyDTO createBookCopy(BookCopyDTO bookCopyDTO) {
         Book book = bookRepository.findById(bookCopyDTO.getOriginalBookBookId())
                 .orElseThrow(() -> new RuntimeException("Book not found with ID: " + bookCopyDTO.getOriginalBookBookId()));
@@ -70,10 +79,50 @@ public class BookCopyService {
         bookCopy.setStatus(BookCopyStatusEnum.AVAILABLE);
 
         BookCopy savedBookCopy = bookCopyRepository.save(bookCopy);
+        bookAvailabilityService.copiesAdded(book.getBookId(), 1);
 
         return convertToDTO(savedBookCopy);
     }
 
+    /**
+     * Creates {@code count} available copies of a book in one transaction.
+     * Ids come from the pooled sequence and the inserts are sent as JDBC batches.
+     *
+     * @throws IllegalArgumentException if the count is out of range or the book does not exist.
+     */
+    @Transactional
+    public BookCopyBatchDTO createBookCopies(int bookId, int count) {
+        if (count < 1 || count > maxBatchCount) {
+            throw new IllegalArgumentException("Count must be between 1 and " + maxBatchCount);
+        }
+        Book book = bookRepository.findById(bookId)
+                .orElseThrow(() -> new IllegalArgumentException("Book not found with ID: " + bookId));
+
+        List<BookCopy> bookCopies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            BookCopy bookCopy = new BookCopy();
+            bookCopy.setOriginalBook(book);
+            bookCopy.setStatus(BookCopyStatusEnum.AVAILABLE);
+            bookCopies.add(bookCopy);
+        }
+        bookCopyRepository.saveAll(bookCopies);
+        bookAvailabilityService.copiesAdded(bookId, count);
+
+        return new BookCopyBatchDTO(bookId, count, toRanges(bookCopies.stream().mapToInt(BookCopy::getId).sorted().toArray()));
+    }
+
+    private static List<BookCopyBatchDTO.IdRange> toRanges(int[] ids) {
+        List<BookCopyBatchDTO.IdRange> ranges = new ArrayList<>();
+        int i = 0;
+        while (i < ids.length) {
+            int first = ids[i];
+            while (i + 1 < ids.length && ids[i + 1] == ids[i] + 1) i++;
+            ranges.add(new BookCopyBatchDTO.IdRange(first, ids[i]));
+            i++;
+        }
+        return ranges;
+    }
+
     @Transactional
     public void deleteBookCopy(int id) {
         BookCopy bookCopy = bookCopyRepository.findById(id)
@@ -99,5 +148,7 @@ public class BookCopyService {
         });
 
         bookCopyRepository.delete(bookCopy);
+        bookAvailabilityService.copyRemoved(bookCopy.getOriginalBook().getBookId(),
+                bookCopy.getStatus() == BookCopyStatusEnum.AVAILABLE);
     }
 }
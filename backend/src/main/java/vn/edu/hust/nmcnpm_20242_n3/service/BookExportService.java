@@ -0,0 +1,83 @@
+package vn.edu.hust.nmcnpm_20242_n3.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import vn.edu.hust.nmcnpm_20242_n3.dto.BookDTO;
+import vn.edu.hust.nmcnpm_20242_n3.entity.Book;
+import vn.edu.hust.nmcnpm_20242_n3.repository.BookRepository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Writes the whole catalog as a JSON array without holding it in memory.
+ * Books are read through a forward-only database cursor inside a read-only transaction,
+ * converted and written one chunk at a time, then detached, so heap use does not depend
+ * on the number of books.
+ */
+@Service
+public class BookExportService {
+
+    private final BookRepository bookRepository;
+    private final BookService bookService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public BookExportService(BookRepository bookRepository, BookService bookService, ObjectMapper objectMapper,
+                             PlatformTransactionManager transactionManager) {
+        this.bookRepository = bookRepository;
+        this.bookService = bookService;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public void exportAllBooks(OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.writeStartArray();
+            try {
+                readOnlyTransaction.executeWithoutResult(status -> {
+                    try (Stream<Book> books = bookRepository.streamAllByOrderByBookIdAsc()) {
+                        writeInChunks(books.iterator(), generator);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    private void writeInChunks(Iterator<Book> books, JsonGenerator generator) {
+        List<Book> chunk = new ArrayList<>(BookRepository.EXPORT_FETCH_SIZE);
+        while (books.hasNext()) {
+            chunk.add(books.next());
+            if (chunk.size() == BookRepository.EXPORT_FETCH_SIZE || !books.hasNext()) {
+                try {
+                    for (BookDTO dto : bookService.convertToDTOs(chunk)) {
+                        objectMapper.writeValue(generator, dto);
+                    }
+                    generator.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                chunk.clear();
+                // Detach what was written so the persistence context stays small
+                entityManager.clear();
+            }
+        }
+    }
+}
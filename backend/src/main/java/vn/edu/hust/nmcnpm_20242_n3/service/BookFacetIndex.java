@@ -0,0 +1,193 @@
+package vn.edu.hust.nmcnpm_20242_n3.service;
+
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Compressed bitmaps of book ids per author, category and publisher, used to filter the
+ * catalog and count the books behind every facet value in one pass.
+ * Counts follow the usual multi-select behaviour: the counts of one facet ignore the
+ * selection made on that same facet, so the other values stay visible with their counts.
+ * <p>
+ * Thread-safe: queries share a read lock, updates take the write lock.
+ */
+public class BookFacetIndex {
+
+    public enum Facet { AUTHOR, CATEGORY, PUBLISHER }
+
+    /**
+     * The facet values of one book: value id -> display name, per facet.
+     */
+    public record Entry(int bookId, Map<Facet, Map<Integer, String>> values) {
+    }
+
+    public record Count(int id, String name, int count) {
+    }
+
+    public record Result(RoaringBitmap matches, Map<Facet, List<Count>> counts) {
+    }
+
+    private static final Comparator<Count> BY_COUNT = Comparator.comparingInt(Count::count).reversed()
+            .thenComparing(Count::name, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final RoaringBitmap all = new RoaringBitmap();
+    private final Map<Facet, Map<Integer, RoaringBitmap>> bitmaps = new EnumMap<>(Facet.class);
+    private final Map<Facet, Map<Integer, String>> names = new EnumMap<>(Facet.class);
+    // Book id -> its facet value ids, to unindex a book and to count small result sets directly
+    private final Map<Integer, int[][]> bookValues = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public BookFacetIndex() {
+        for (Facet facet : Facet.values()) {
+            bitmaps.put(facet, new HashMap<>());
+            names.put(facet, new HashMap<>());
+        }
+    }
+
+    /**
+     * Adds a book, replacing its previous facet values if any.
+     */
+    public void put(Entry entry) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(entry.bookId());
+            int[][] valueIds = new int[Facet.values().length][];
+            for (Facet facet : Facet.values()) {
+                Map<Integer, String> values = entry.values().getOrDefault(facet, Map.of());
+                valueIds[facet.ordinal()] = values.keySet().stream().mapToInt(Integer::intValue).toArray();
+                for (Map.Entry<Integer, String> value : values.entrySet()) {
+                    bitmaps.get(facet).computeIfAbsent(value.getKey(), id -> new RoaringBitmap()).add(entry.bookId());
+                    if (value.getValue() != null) names.get(facet).put(value.getKey(), value.getValue());
+                }
+            }
+            bookValues.put(entry.bookId(), valueIds);
+            all.add(entry.bookId());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int bookId) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            all.clear();
+            bookValues.clear();
+            for (Facet facet : Facet.values()) {
+                bitmaps.get(facet).clear();
+                names.get(facet).clear();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Compresses runs of consecutive ids, worth doing after a bulk load.
+     */
+    public void optimize() {
+        lock.writeLock().lock();
+        try {
+            all.runOptimize();
+            bitmaps.values().forEach(byValue -> byValue.values().forEach(RoaringBitmap::runOptimize));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Filters the catalog and counts every facet value within the result.
+     *
+     * @param candidates The books to start from, e.g. the text matches, or null for the whole catalog.
+     * @param selected   The selected value id per facet; facets without a selection are absent.
+     * @param maxValues  The maximum number of values returned per facet, most frequent first.
+     */
+    public Result facet(RoaringBitmap candidates, Map<Facet, Integer> selected, int maxValues) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap base = candidates == null ? all.clone() : RoaringBitmap.and(all, candidates);
+            RoaringBitmap matches = applySelection(base, selected, null);
+
+            Map<Facet, List<Count>> counts = new EnumMap<>(Facet.class);
+            for (Facet facet : Facet.values()) {
+                // Ignore this facet's own selection, so its other values keep their counts
+                RoaringBitmap scope = selected.containsKey(facet) ? applySelection(base, selected, facet) : matches;
+                counts.put(facet, count(facet, scope, maxValues));
+            }
+            return new Result(matches, counts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private RoaringBitmap applySelection(RoaringBitmap base, Map<Facet, Integer> selected, Facet excluded) {
+        RoaringBitmap result = base;
+        for (Map.Entry<Facet, Integer> selection : selected.entrySet()) {
+            if (selection.getKey() == excluded) continue;
+            RoaringBitmap values = bitmaps.get(selection.getKey()).get(selection.getValue());
+            if (values == null) return new RoaringBitmap();
+            result = RoaringBitmap.and(result, values);
+        }
+        return result;
+    }
+
+    private List<Count> count(Facet facet, RoaringBitmap scope, int maxValues) {
+        Map<Integer, RoaringBitmap> byValue = bitmaps.get(facet);
+        Map<Integer, String> facetNames = names.get(facet);
+        List<Count> counts = new ArrayList<>();
+
+        if (scope.getCardinality() < byValue.size()) {
+            // Fewer books than values: walk the books and tally their values
+            Map<Integer, Integer> tally = new HashMap<>();
+            IntIterator books = scope.getIntIterator();
+            while (books.hasNext()) {
+                for (int valueId : bookValues.get(books.next())[facet.ordinal()]) {
+                    tally.merge(valueId, 1, Integer::sum);
+                }
+            }
+            tally.forEach((valueId, count) -> counts.add(new Count(valueId, facetNames.get(valueId), count)));
+        } else {
+            for (Map.Entry<Integer, RoaringBitmap> value : byValue.entrySet()) {
+                int count = RoaringBitmap.andCardinality(scope, value.getValue());
+                if (count > 0) counts.add(new Count(value.getKey(), facetNames.get(value.getKey()), count));
+            }
+        }
+
+        counts.sort(BY_COUNT);
+        return counts.size() > maxValues ? new ArrayList<>(counts.subList(0, maxValues)) : counts;
+    }
+
+    private void removeUnlocked(int bookId) {
+        int[][] valueIds = bookValues.remove(bookId);
+        if (valueIds == null) return;
+        for (Facet facet : Facet.values()) {
+            Map<Integer, RoaringBitmap> byValue = bitmaps.get(facet);
+            for (int valueId : valueIds[facet.ordinal()]) {
+                RoaringBitmap books = byValue.get(valueId);
+                if (books == null) continue;
+                books.remove(bookId);
+                if (books.isEmpty()) {
+                    byValue.remove(valueId);
+                    names.get(facet).remove(valueId);
+                }
+            }
+        }
+        all.remove(bookId);
+    }
+}
@@ -0,0 +1,357 @@
+package vn.edu.hust.nmcnpm_20242_n3.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import vn.edu.hust.nmcnpm_20242_n3.dto.BookImportResultDTO;
+import vn.edu.hust.nmcnpm_20242_n3.dto.BookImportRowDTO;
+import vn.edu.hust.nmcnpm_20242_n3.entity.Author;
+import vn.edu.hust.nmcnpm_20242_n3.entity.Book;
+import vn.edu.hust.nmcnpm_20242_n3.entity.Category;
+import vn.edu.hust.nmcnpm_20242_n3.entity.Publisher;
+import vn.edu.hust.nmcnpm_20242_n3.repository.AuthorRepository;
+import vn.edu.hust.nmcnpm_20242_n3.repository.BookRepository;
+import vn.edu.hust.nmcnpm_20242_n3.repository.CategoryRepository;
+import vn.edu.hust.nmcnpm_20242_n3.repository.PublisherRepository;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bulk import of books from CSV or NDJSON.
+ * Publishers, authors and categories are resolved by name from maps loaded once per import.
+ * Rows are processed in chunks of {@code import.books.chunk-size}: the titles of a chunk are checked
+ * against the database in one query, and the chunk is inserted in its own transaction, so the
+ * inserts go out as JDBC batches. Rejected rows are reported individually and do not stop the import.
+ * <p>
+ * CSV input needs a header row with the columns title, description, publisher, authors and
+ * categories; several authors or categories are separated by ";".
+ */
+@Service
+public class BookImportService {
+    private static final Logger logger = LoggerFactory.getLogger(BookImportService.class);
+
+    private static final String LIST_SEPARATOR = ";";
+
+    public enum Format { CSV, NDJSON }
+
+    private final BookRepository bookRepository;
+    private final PublisherRepository publisherRepository;
+    private final AuthorRepository authorRepository;
+    private final CategoryRepository categoryRepository;
+    private final BookIndexService bookIndexService;
+    private final CatalogVersionService catalogVersionService;
+    private final SuggestService suggestService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${import.books.chunk-size:1000}")
+    private int chunkSize;
+
+    public BookImportService(BookRepository bookRepository, PublisherRepository publisherRepository,
+                             AuthorRepository authorRepository, CategoryRepository categoryRepository,
+                             BookIndexService bookIndexService, CatalogVersionService catalogVersionService,
+                             SuggestService suggestService, ObjectMapper objectMapper,
+                             PlatformTransactionManager transactionManager) {
+        this.bookRepository = bookRepository;
+        this.publisherRepository = publisherRepository;
+        this.authorRepository = authorRepository;
+        this.categoryRepository = categoryRepository;
+        this.bookIndexService = bookIndexService;
+        this.catalogVersionService = catalogVersionService;
+        this.suggestService = suggestService;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Imports every row of the input.
+     *
+     * @throws IllegalArgumentException if the CSV header is missing or has no title column.
+     */
+    public BookImportResultDTO importBooks(InputStream input, Format format) throws IOException {
+        long start = System.nanoTime();
+        Import run = new Import();
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        List<PendingRow> chunk = new ArrayList<>(chunkSize);
+        if (format == Format.CSV) {
+            Map<String, Integer> columns = readCsvHeader(reader);
+            List<String> record;
+            while ((record = readCsvRecord(reader)) != null) {
+                if (record.size() == 1 && record.get(0).isBlank()) continue;
+                chunk.add(new PendingRow(++run.totalRows, fromCsv(record, columns), null));
+                if (chunk.size() == chunkSize) processChunk(chunk, run);
+            }
+        } else {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                int row = ++run.totalRows;
+                try {
+                    chunk.add(new PendingRow(row, objectMapper.readValue(line, BookImportRowDTO.class), null));
+                } catch (JsonProcessingException e) {
+                    chunk.add(new PendingRow(row, null, "Invalid JSON: " + e.getOriginalMessage()));
+                }
+                if (chunk.size() == chunkSize) processChunk(chunk, run);
+            }
+        }
+        processChunk(chunk, run);
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        double rowsPerSecond = seconds > 0 ? run.imported / seconds : 0;
+        logger.info("Book import: {} rows, {} imported, {} failed, {} rows/s", run.totalRows, run.imported,
+                run.errors.size(), String.format("%.1f", rowsPerSecond));
+        return new BookImportResultDTO(run.totalRows, run.imported, run.errors.size(), rowsPerSecond, run.errors);
+    }
+
+    private void processChunk(List<PendingRow> chunk, Import run) {
+        if (chunk.isEmpty()) return;
+
+        List<ResolvedRow> valid = new ArrayList<>(chunk.size());
+        for (PendingRow pending : chunk) {
+            String error = pending.error() != null ? pending.error() : run.resolve(pending, valid);
+            if (error != null) run.errors.add(new BookImportResultDTO.RowError(pending.row(), error));
+        }
+        chunk.clear();
+        if (valid.isEmpty()) return;
+
+        // One query for the whole chunk instead of a findByTitle per row
+        Set<String> existing = new HashSet<>(bookRepository.findExistingTitles(
+                valid.stream().map(ResolvedRow::title).toList()));
+        List<ResolvedRow> toInsert = new ArrayList<>(valid.size());
+        for (ResolvedRow row : valid) {
+            if (existing.contains(row.title())) {
+                run.errors.add(new BookImportResultDTO.RowError(row.row(), "Book with title " + row.title() + " already exists"));
+            } else {
+                toInsert.add(row);
+            }
+        }
+        if (toInsert.isEmpty()) return;
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(toInsert, run));
+            run.imported += toInsert.size();
+        } catch (DataIntegrityViolationException | PersistenceException e) {
+            // Most likely a title inserted concurrently. The whole chunk was rolled back, so retry
+            // it row by row and reject only the rows that still fail.
+            for (ResolvedRow row : toInsert) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insert(List.of(row), run));
+                    run.imported++;
+                } catch (DataIntegrityViolationException | PersistenceException rowFailure) {
+                    run.errors.add(new BookImportResultDTO.RowError(row.row(), "Insert failed: " + rootMessage(rowFailure)));
+                }
+            }
+        }
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable cause = e;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+        return cause.getMessage();
+    }
+
+    private void insert(List<ResolvedRow> rows, Import run) {
+        List<Book> books = new ArrayList<>(rows.size());
+        for (ResolvedRow row : rows) {
+            Book book = new Book();
+            book.setTitle(row.title());
+            book.setDescription(row.description());
+            // References only, the rows are known to exist
+            if (row.publisherId() != null) {
+                book.setPublisher(entityManager.getReference(Publisher.class, row.publisherId()));
+            }
+            Set<Author> authors = new HashSet<>();
+            row.authorIds().keySet().forEach(id -> authors.add(entityManager.getReference(Author.class, id)));
+            book.setAuthors(authors);
+            Set<Category> categories = new HashSet<>();
+            row.categoryIds().keySet().forEach(id -> categories.add(entityManager.getReference(Category.class, id)));
+            book.setCategories(categories);
+
+            entityManager.persist(book);
+            books.add(book);
+        }
+        entityManager.flush();
+
+        for (int i = 0; i < rows.size(); i++) {
+            ResolvedRow row = rows.get(i);
+            Map<Integer, String> publisher = row.publisherId() == null ? Map.of()
+                    : Map.of(row.publisherId(), run.publisherNames.get(row.publisherId()));
+            bookIndexService.index(books.get(i).getBookId(), row.title(), row.authorIds(), row.categoryIds(), publisher);
+            suggestService.put(SuggestionIndex.Type.TITLE, books.get(i).getBookId(), row.title());
+        }
+        catalogVersionService.bump(CatalogVersionService.Resource.BOOKS);
+        entityManager.clear();
+    }
+
+    private BookImportRowDTO fromCsv(List<String> record, Map<String, Integer> columns) {
+        BookImportRowDTO row = new BookImportRowDTO();
+        row.setTitle(column(record, columns, "title"));
+        row.setDescription(column(record, columns, "description"));
+        row.setPublisher(column(record, columns, "publisher"));
+        row.setAuthors(splitList(column(record, columns, "authors")));
+        row.setCategories(splitList(column(record, columns, "categories")));
+        return row;
+    }
+
+    private static String column(List<String> record, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        return index == null || index >= record.size() ? null : record.get(index);
+    }
+
+    private static List<String> splitList(String value) {
+        if (value == null || value.isBlank()) return List.of();
+        return Arrays.stream(value.split(LIST_SEPARATOR)).map(String::trim).filter(s -> !s.isEmpty()).toList();
+    }
+
+    private static Map<String, Integer> readCsvHeader(BufferedReader reader) throws IOException {
+        List<String> header = readCsvRecord(reader);
+        if (header == null) {
+            throw new IllegalArgumentException("CSV input is empty, a header row is required");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            // Tolerate a byte order mark and surrounding spaces
+            columns.put(header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.containsKey("title")) {
+            throw new IllegalArgumentException("CSV header must contain a title column");
+        }
+        return columns;
+    }
+
+    /**
+     * Reads one RFC 4180 record: comma separated, fields optionally double-quoted, quotes escaped
+     * by doubling, line breaks allowed inside quoted fields.
+     *
+     * @return The fields of the record, or null at the end of the input.
+     */
+    static List<String> readCsvRecord(BufferedReader reader) throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean empty = true;
+        int c;
+        while ((c = reader.read()) != -1) {
+            empty = false;
+            if (quoted) {
+                if (c != '"') {
+                    field.append((char) c);
+                    continue;
+                }
+                reader.mark(1);
+                int next = reader.read();
+                if (next == '"') {
+                    field.append('"');
+                } else {
+                    quoted = false;
+                    if (next != -1) reader.reset();
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+        if (empty) return null;
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private record PendingRow(int row, BookImportRowDTO data, String error) {
+    }
+
+    private record ResolvedRow(int row, String title, String description, Integer publisherId,
+                               Map<Integer, String> authorIds, Map<Integer, String> categoryIds) {
+    }
+
+    /**
+     * State of one import run: the reference maps, titles seen so far and the running totals.
+     */
+    private final class Import {
+        private final Map<String, Integer> publishers = new HashMap<>();
+        private final Map<Integer, String> publisherNames = new HashMap<>();
+        private final Map<String, Integer> authors = new HashMap<>();
+        private final Map<String, Integer> categories = new HashMap<>();
+        private final Set<String> titles = new HashSet<>();
+        private final List<BookImportResultDTO.RowError> errors = new ArrayList<>();
+        private int totalRows;
+        private int imported;
+
+        Import() {
+            publisherRepository.findAll().forEach(p -> {
+                publishers.put(p.getName(), p.getId());
+                publisherNames.put(p.getId(), p.getName());
+            });
+            authorRepository.findAll().forEach(a -> authors.put(a.getName(), a.getId()));
+            categoryRepository.findAll().forEach(c -> categories.put(c.getName(), c.getId()));
+        }
+
+        /**
+         * Validates a row and resolves its references, adding it to {@code valid} on success.
+         *
+         * @return The error message, or null if the row is valid.
+         */
+        String resolve(PendingRow pending, List<ResolvedRow> valid) {
+            BookImportRowDTO data = pending.data();
+            String title = data.getTitle() == null ? "" : data.getTitle().trim();
+            if (title.isEmpty()) return "Title is required";
+            if (titles.contains(title)) return "Duplicate title in the import: " + title;
+
+            Integer publisherId = null;
+            if (data.getPublisher() != null && !data.getPublisher().isBlank()) {
+                publisherId = publishers.get(data.getPublisher().trim());
+                if (publisherId == null) return "Unknown publisher: " + data.getPublisher().trim();
+            }
+            Map<Integer, String> authorIds = new LinkedHashMap<>();
+            for (String name : data.getAuthors() == null ? List.<String>of() : data.getAuthors()) {
+                Integer id = authors.get(name.trim());
+                if (id == null) return "Unknown author: " + name.trim();
+                authorIds.put(id, name.trim());
+            }
+            Map<Integer, String> categoryIds = new LinkedHashMap<>();
+            for (String name : data.getCategories() == null ? List.<String>of() : data.getCategories()) {
+                Integer id = categories.get(name.trim());
+                if (id == null) return "Unknown category: " + name.trim();
+                categoryIds.put(id, name.trim());
+            }
+
+            titles.add(title);
+            valid.add(new ResolvedRow(pending.row(), title, data.getDescription(), publisherId, authorIds, categoryIds));
+            return null;
+        }
+    }
+}
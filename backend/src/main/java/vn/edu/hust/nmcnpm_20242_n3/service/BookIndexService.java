@@ -0,0 +1,224 @@
+package vn.edu.hust.nmcnpm_20242_n3.service;
+
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import vn.edu.hust.nmcnpm_20242_n3.entity.Author;
+import vn.edu.hust.nmcnpm_20242_n3.entity.Book;
+import vn.edu.hust.nmcnpm_20242_n3.entity.Category;
+import vn.edu.hust.nmcnpm_20242_n3.repository.BookRepository;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Keeps the in-memory {@link BookSearchIndex} and {@link BookFacetIndex} in sync with the books table.
+ * The indexes are built once the application is ready and then updated by {@link BookService}
+ * writes, and by renames and deletes of authors, categories and publishers, after their
+ * transaction commits. Until the first build completes, or when
+ * {@code search.index.enabled} is off, {@link #isReady()} is false and callers fall back to SQL.
+ */
+@Service
+public class BookIndexService {
+    private static final Logger logger = LoggerFactory.getLogger(BookIndexService.class);
+
+    private final BookRepository bookRepository;
+    private final BookSearchIndex index = new BookSearchIndex();
+    private final BookFacetIndex facets = new BookFacetIndex();
+    private final boolean enabled;
+    private final boolean fuzzy;
+    private final int batchSize;
+    private volatile boolean ready;
+
+    /**
+     * One page of faceted results: the ids of the page, the total number of matches and the
+     * counts per facet value.
+     */
+    public record FacetPage(List<Integer> ids, long totalElements,
+                            Map<BookFacetIndex.Facet, List<BookFacetIndex.Count>> counts) {
+    }
+
+    public BookIndexService(BookRepository bookRepository,
+                            @Value("${search.index.enabled:true}") boolean enabled,
+                            @Value("${search.index.fuzzy:true}") boolean fuzzy,
+                            @Value("${search.index.batch-size:1000}") int batchSize) {
+        this.bookRepository = bookRepository;
+        this.enabled = enabled;
+        this.fuzzy = fuzzy;
+        this.batchSize = batchSize;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Rebuilds the indexes from the database, reading books in id order in batches of
+     * {@code search.index.batch-size} with their authors and categories.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) return;
+
+        long start = System.nanoTime();
+        ready = false;
+        index.clear();
+        facets.clear();
+
+        int afterId = Integer.MIN_VALUE;
+        List<Object[]> rows;
+        do {
+            rows = bookRepository.findIndexRowsAfter(afterId, PageRequest.ofSize(batchSize));
+            if (rows.isEmpty()) break;
+            putRows(rows);
+            afterId = (Integer) rows.get(rows.size() - 1)[0];
+        } while (rows.size() == batchSize);
+
+        facets.optimize();
+        ready = true;
+        logger.info("Book search index built: {} books in {} ms", index.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Indexes a saved book once the surrounding transaction, if any, has committed.
+     */
+    public void index(Book book) {
+        if (!enabled) return;
+        // Read the names now, while the entity is still attached
+        Map<Integer, String> authors = names(book.getAuthors(), Author::getId, Author::getName);
+        Map<Integer, String> categories = names(book.getCategories(), Category::getId, Category::getName);
+        Map<Integer, String> publisher = book.getPublisher() == null ? Map.of()
+                : Map.of(book.getPublisher().getId(), book.getPublisher().getName());
+        int bookId = book.getBookId();
+        String title = book.getTitle();
+        AfterCommit.run(() -> put(bookId, title, authors, categories, publisher));
+    }
+
+    /**
+     * Indexes a saved book from already resolved names, for callers that only hold references.
+     */
+    public void index(int bookId, String title, Map<Integer, String> authors,
+                      Map<Integer, String> categories, Map<Integer, String> publisher) {
+        if (!enabled) return;
+        AfterCommit.run(() -> put(bookId, title, authors, categories, publisher));
+    }
+
+    /**
+     * Re-indexes the books linked to an author, category or publisher whose name changed or
+     * which is being deleted. The affected books are looked up now, so call this before the
+     * links are removed; they are re-read from the database once the transaction has committed.
+     */
+    public void reindexBooksWith(BookFacetIndex.Facet facet, int valueId) {
+        if (!enabled) return;
+        List<Integer> bookIds = switch (facet) {
+            case AUTHOR -> bookRepository.findIdsByAuthorId(valueId);
+            case CATEGORY -> bookRepository.findIdsByCategoryId(valueId);
+            case PUBLISHER -> bookRepository.findIdsByPublisherId(valueId);
+        };
+        if (bookIds.isEmpty()) return;
+        AfterCommit.run(() -> {
+            for (int from = 0; from < bookIds.size(); from += batchSize) {
+                putRows(bookRepository.findIndexRowsByIds(bookIds.subList(from, Math.min(from + batchSize, bookIds.size()))));
+            }
+        });
+    }
+
+    public void remove(int bookId) {
+        if (!enabled) return;
+        AfterCommit.run(() -> {
+            index.remove(bookId);
+            facets.remove(bookId);
+        });
+    }
+
+    /**
+     * @return The ids of the best matching books, best first.
+     */
+    public List<Integer> search(String query, int limit) {
+        return index.search(query, limit, fuzzy);
+    }
+
+    /**
+     * Filters the catalog by text and facet selections and counts every facet value in one pass.
+     * Pages are ranked by relevance when there is a query, and in id order otherwise.
+     *
+     * @param query    The search text, may be blank to browse by facets only.
+     * @param selected The selected value id per facet.
+     * @param page     The page number, starting at 1.
+     */
+    public FacetPage facetSearch(String query, Map<BookFacetIndex.Facet, Integer> selected,
+                                 int page, int size, int maxValues) {
+        boolean hasQuery = query != null && !query.isBlank();
+        RoaringBitmap textMatches = hasQuery ? RoaringBitmap.bitmapOf(index.matchingIds(query, fuzzy)) : null;
+        BookFacetIndex.Result result = facets.facet(textMatches, selected, maxValues);
+        RoaringBitmap matches = result.matches();
+
+        int offset = (page - 1) * size;
+        List<Integer> ids = new ArrayList<>(size);
+        if (hasQuery) {
+            List<Integer> ranked = index.search(query, offset + size, fuzzy, matches::contains);
+            if (offset < ranked.size()) ids.addAll(ranked.subList(offset, ranked.size()));
+        } else {
+            int end = Math.min(offset + size, matches.getCardinality());
+            for (int i = offset; i < end; i++) {
+                ids.add(matches.select(i));
+            }
+        }
+        return new FacetPage(ids, matches.getLongCardinality(), result.counts());
+    }
+
+    // Rows of [bookId, title, publisher id, publisher name]
+    private void putRows(List<Object[]> rows) {
+        List<Integer> ids = rows.stream().map(row -> (Integer) row[0]).toList();
+        Map<Integer, Map<Integer, String>> authors = groupNames(bookRepository.findAuthorNamesByBookIds(ids));
+        Map<Integer, Map<Integer, String>> categories = groupNames(bookRepository.findCategoryNamesByBookIds(ids));
+        for (Object[] row : rows) {
+            int bookId = (Integer) row[0];
+            Map<Integer, String> publisher = row[2] == null ? Map.of() : Map.of((Integer) row[2], (String) row[3]);
+            put(bookId, (String) row[1],
+                    authors.getOrDefault(bookId, Map.of()),
+                    categories.getOrDefault(bookId, Map.of()),
+                    publisher);
+        }
+    }
+
+    private void put(int bookId, String title, Map<Integer, String> authors,
+                     Map<Integer, String> categories, Map<Integer, String> publisher) {
+        index.put(new BookSearchIndex.Document(bookId, title, authors.values(), categories.values(),
+                publisher.isEmpty() ? null : publisher.values().iterator().next()));
+
+        Map<BookFacetIndex.Facet, Map<Integer, String>> values = new EnumMap<>(BookFacetIndex.Facet.class);
+        values.put(BookFacetIndex.Facet.AUTHOR, authors);
+        values.put(BookFacetIndex.Facet.CATEGORY, categories);
+        values.put(BookFacetIndex.Facet.PUBLISHER, publisher);
+        facets.put(new BookFacetIndex.Entry(bookId, values));
+    }
+
+    private static Map<Integer, Map<Integer, String>> groupNames(List<Object[]> rows) {
+        Map<Integer, Map<Integer, String>> names = new HashMap<>();
+        for (Object[] row : rows) {
+            names.computeIfAbsent((Integer) row[0], id -> new LinkedHashMap<>()).put((Integer) row[1], (String) row[2]);
+        }
+        return names;
+    }
+
+    private static <T> Map<Integer, String> names(Set<T> entities, ToIntFunction<T> id, Function<T, String> name) {
+        Map<Integer, String> names = new LinkedHashMap<>();
+        if (entities == null) return names;
+        entities.stream().filter(Objects::nonNull).forEach(entity -> names.put(id.applyAsInt(entity), name.apply(entity)));
+        return names;
+    }
+}
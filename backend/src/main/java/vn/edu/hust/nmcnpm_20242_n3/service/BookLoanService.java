@@ -3,13 +3,22 @@ package vn.edu.hust.nmcnpm_20242_n3.service;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import java.util.stream.Collectors;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import jakarta.transaction.Transactional;
 import vn.edu.hust.nmcnpm_20242_n3.constant.BookCopyStatusEnum;
 import vn.edu.hust.nmcnpm_20242_n3.constant.BookLoanStatusEnum;
@@ -24,20 +33,32 @@ import vn.edu.hust.nmcnpm_20242_n3.repository.UserRepository;
 @EnableScheduling
 @Service
 public class BookLoanService {
+    private static final Logger logger = LoggerFactory.getLogger(BookLoanService.class);
 
     private final BookCopyRepository bookCopyRepository;
     private final BookLoanRepository bookLoanRepository;
     private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Timer overdueSweepTimer;
+    private final Counter overdueCounter;
 
+    @Value("${loans.overdue.chunk-size:1000}")
+    private int overdueChunkSize;
 
     @Autowired
     public BookLoanService(BookCopyRepository bookCopyRepository, BookLoanRepository bookLoanRepository,
-            UserRepository userRepository) {
+            UserRepository userRepository, PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
         this.bookCopyRepository = bookCopyRepository;
         this.bookLoanRepository = bookLoanRepository;
 
         this.userRepository = userRepository;
-
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.overdueSweepTimer = Timer.builder("loans.overdue.sweep")
+                .description("Time spent marking past-due loans as overdue")
+                .register(meterRegistry);
+        this.overdueCounter = Counter.builder("loans.overdue.marked")
+                .description("Loans marked overdue by the sweep")
+                .register(meterRegistry);
     }
 
     public List<BookLoanDTO> getAllLoansByUserId(String userId) {
@@ -69,19 +90,31 @@ public class BookLoanService {
         return bookLoanRepository.save(bookLoan);
     }
 
-    @Scheduled(cron = "0 0 4 * * ?") // Every day at 4 AM
-    @Transactional
-    public void checkOverdueBookLoans() {
-        List<BookLoan> borrowedLoans = bookLoanRepository.findByStatus(BookLoanStatusEnum.BORROWED);
-        Date currentDate = new Date();
-
-        for (BookLoan loan : borrowedLoans) {
-            if (loan.getDueDate() != null && loan.getDueDate().before(currentDate)) {
-                loan.setStatus(BookLoanStatusEnum.OVERDUE);
-                User user = loan.getUser();
-                bookLoanRepository.save(loan);
+    /**
+     * Marks every BORROWED loan that is past its due date as OVERDUE. Loans are updated by a bulk
+     * UPDATE of at most {@code loans.overdue.chunk-size} rows per transaction, so only one chunk of
+     * ids is held at a time; each chunk is handed to {@code onChunk} after it commits. A chunk can
+     * come back short because rows locked by other transactions are skipped, so chunks are taken
+     * until one comes back empty.
+     *
+     * @return The number of loans marked overdue.
+     */
+    public int sweepOverdueLoans(Consumer<List<String>> onChunk) {
+        long start = System.nanoTime();
+        Date now = new Date();
+        int total = 0;
+        List<String> ids;
+        do {
+            ids = transactionTemplate.execute(status -> bookLoanRepository.markOverdue(now, overdueChunkSize));
+            if (!ids.isEmpty()) {
+                overdueCounter.increment(ids.size());
+                onChunk.accept(ids);
             }
-        }
+            total += ids.size();
+        } while (!ids.isEmpty());
+        overdueSweepTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        logger.info("Overdue sweep marked {} loans in {} ms", total, (System.nanoTime() - start) / 1_000_000);
+        return total;
     }
 
     public Optional<BookLoan> findBookLoanByBookCopyIdAndUserIdAndStatus(int bookCopyId, String userId,
@@ -90,6 +123,10 @@ public class BookLoanService {
     }
 
 
+    public Optional<BookLoan> findOpenBookLoan(int bookCopyId, String userId) {
+        return bookLoanRepository.findOpenByBookCopyIdAndUserId(userId, bookCopyId);
+    }
+
     public void save(BookLoan bookLoan) {
         bookLoanRepository.save(bookLoan);
     }
@@ -1,17 +1,33 @@
 package vn.edu.hust.nmcnpm_20242_n3.service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
-import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+
+import jakarta.persistence.OptimisticLockException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import jakarta.transaction.Transactional;
 import vn.edu.hust.nmcnpm_20242_n3.constant.BookCopyStatusEnum;
 import vn.edu.hust.nmcnpm_20242_n3.constant.BookLoanStatusEnum;
 import vn.edu.hust.nmcnpm_20242_n3.constant.BookRequestStatusEnum;
 import vn.edu.hust.nmcnpm_20242_n3.constant.BookRequestTypeEnum;
+import vn.edu.hust.nmcnpm_20242_n3.dto.BookRequestBatchResultDTO;
 import vn.edu.hust.nmcnpm_20242_n3.dto.BookRequestDTO;
+import vn.edu.hust.nmcnpm_20242_n3.dto.BookRequestDecisionDTO;
+import vn.edu.hust.nmcnpm_20242_n3.dto.BookRequestPageDTO;
 import vn.edu.hust.nmcnpm_20242_n3.entity.BookCopy;
 import vn.edu.hust.nmcnpm_20242_n3.entity.BookLoan;
 import vn.edu.hust.nmcnpm_20242_n3.entity.BookRequest;
@@ -28,41 +44,223 @@ public class BookRequestService {
     private final UserRepository userRepository;
     private final BookRequestRepository bookRequestRepository;
     private final SubscriptionService subscriptionService;
+    private final BookAvailabilityService bookAvailabilityService;
+    private final LoanDueScheduler loanDueScheduler;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${requests.process.max-attempts:3}")
+    private int maxProcessAttempts;
+
+    @Value("${requests.queue.max-page-size:100}")
+    private int maxQueuePageSize;
+
+    @Value("${requests.batch.max-size:500}")
+    private int maxBatchSize;
 
     @Autowired
     public BookRequestService(BookCopyRepository bookCopyRepository, BookLoanService bookLoanService,
-                              UserRepository userRepository, BookRequestRepository bookRequestRepository, SubscriptionService subscriptionService) {
+                              UserRepository userRepository, BookRequestRepository bookRequestRepository, SubscriptionService subscriptionService,
+                              BookAvailabilityService bookAvailabilityService, LoanDueScheduler loanDueScheduler,
+                              PlatformTransactionManager transactionManager) {
         this.bookCopyRepository = bookCopyRepository;
         this.userRepository = userRepository;
         this.bookRequestRepository = bookRequestRepository;
         this.bookLoanService = bookLoanService;
         this.subscriptionService = subscriptionService;
+        this.bookAvailabilityService = bookAvailabilityService;
+        this.loanDueScheduler = loanDueScheduler;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
-    public List<BookRequestDTO> getAllRequests() {
-        List<BookRequest> requests = bookRequestRepository.findAll();
-        for (BookRequest request : requests) {
-            if (request.getBookLoan() != null) {
-                if (request.getBookCopy() == null) {
-                    request.setBookCopy(request.getBookLoan().getBookCopy());
-                }
-                if (request.getUser() == null) {
-                    request.setUser(request.getBookLoan().getUser());
+    /**
+     * One page of the staff queue: pending requests first, each group oldest first. Filters are
+     * optional; {@code from} is inclusive and {@code to} exclusive. Rows are projected straight
+     * into DTOs by the database, and each group is read as one range in index order, so the cost
+     * follows the page size rather than the request history.
+     */
+    public BookRequestPageDTO getRequestQueue(BookRequestStatusEnum status, BookRequestTypeEnum type, String userId,
+                                              LocalDateTime from, LocalDateTime to, int page, int size) {
+        if (page < 1) {
+            throw new IllegalArgumentException("Page number must be 1 or greater.");
+        }
+        if (size < 1 || size > maxQueuePageSize) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + maxQueuePageSize + ".");
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' must be before 'to'.");
+        }
+        int offset = (page - 1) * size;
+        if (status != null) {
+            return new BookRequestPageDTO(
+                    bookRequestRepository.findQueueWithStatus(status, type, userId, from, to, offset, size), page, size,
+                    bookRequestRepository.countQueueWithStatus(status, type, userId, from, to));
+        }
+
+        // The page may end in the pending range, start after it, or straddle the boundary
+        long pending = bookRequestRepository.countQueueWithStatus(BookRequestStatusEnum.PENDING, type, userId, from, to);
+        long settled = bookRequestRepository.countQueueWithoutStatus(BookRequestStatusEnum.PENDING, type, userId, from, to);
+        List<BookRequestDTO> requests = new ArrayList<>(size);
+        if (offset < pending) {
+            requests.addAll(bookRequestRepository.findQueueWithStatus(BookRequestStatusEnum.PENDING,
+                    type, userId, from, to, offset, size));
+        }
+        if (requests.size() < size && offset + requests.size() < pending + settled) {
+            int settledOffset = (int) Math.max(0, offset - pending);
+            requests.addAll(bookRequestRepository.findQueueWithoutStatus(BookRequestStatusEnum.PENDING,
+                    type, userId, from, to, settledOffset, size - requests.size()));
+        }
+        return new BookRequestPageDTO(requests, page, size, pending + settled);
+    }
+
+    /**
+     * Approves or denies a pending request. The request, its copy and its loan are versioned, so
+     * when two desks act on the same copy at once only one commit succeeds; the other decision is
+     * retried on fresh data, up to {@code requests.process.max-attempts} times in total.
+     *
+     * @throws IllegalStateException if the request cannot be processed in its current state, or
+     *                               still conflicts after the last attempt.
+     */
+    public BookRequestDTO processRequest(String requestId, boolean approve) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> applyDecision(requestId, approve));
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                if (attempt >= maxProcessAttempts) {
+                    throw new IllegalStateException("Request with ID " + requestId
+                            + " conflicts with a concurrent change, please try again");
                 }
+                backOff(attempt);
             }
         }
-        return requests.stream()
-                .sorted(Comparator.comparing((BookRequest br) -> br.getStatus() == BookRequestStatusEnum.PENDING ? 0 : 1)
-                        .thenComparing(BookRequest::getCreatedAt))
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
     }
 
-    @Transactional
-    public BookRequestDTO processRequest(String requestId, boolean approve) {
+    // Short random pause so that colliding retries do not collide again
+    private static void backOff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(1, 10L * attempt));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying a conflicting request", e);
+        }
+    }
+
+    private BookRequestDTO applyDecision(String requestId, boolean approve) {
         BookRequest request = bookRequestRepository.findById(requestId)
                 .orElseThrow(() -> new IllegalArgumentException("Request not found with ID: " + requestId));
 
+        Effects effects = new Effects();
+        decide(request, approve, effects);
+        applyEffects(effects);
+        return convertToDTO(bookRequestRepository.save(request));
+    }
+
+    /**
+     * Approves or denies many pending requests in one transaction. All requests are loaded with
+     * their copies, loans and users in one query; counter and subscription changes are collected
+     * and written once per book and once for the whole batch. A decision that is not valid for its
+     * request is reported in its result and does not affect the others. On a concurrent change
+     * the whole batch is retried like {@link #processRequest(String, boolean)}; if it still conflicts
+     * after the last attempt, each decision is processed in its own transaction instead, so that
+     * only the decisions that keep conflicting fail.
+     *
+     * @return One result per decision, in the given order.
+     * @throws IllegalArgumentException if the batch is empty or larger than {@code requests.batch.max-size}.
+     */
+    public List<BookRequestBatchResultDTO> processRequests(List<BookRequestDecisionDTO> decisions) {
+        if (decisions == null || decisions.isEmpty() || decisions.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Batch must contain between 1 and " + maxBatchSize + " decisions");
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> applyDecisions(decisions));
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                if (attempt >= maxProcessAttempts) {
+                    return processEach(decisions);
+                }
+                backOff(attempt);
+            }
+        }
+    }
+
+    // One transaction, with its own retries, per decision
+    private List<BookRequestBatchResultDTO> processEach(List<BookRequestDecisionDTO> decisions) {
+        List<BookRequestBatchResultDTO> results = new ArrayList<>(decisions.size());
+        for (BookRequestDecisionDTO decision : decisions) {
+            String requestId = decision.getRequestId();
+            try {
+                results.add(new BookRequestBatchResultDTO(requestId, true, decidedMessage(decision.isApprove()),
+                        processRequest(requestId, decision.isApprove())));
+            } catch (IllegalArgumentException e) {
+                results.add(new BookRequestBatchResultDTO(requestId, false, e.getMessage(), null));
+            } catch (IllegalStateException e) {
+                results.add(new BookRequestBatchResultDTO(requestId, false, e.getMessage(),
+                        bookRequestRepository.findById(requestId).map(this::convertToDTO).orElse(null)));
+            }
+        }
+        return results;
+    }
+
+    private static String decidedMessage(boolean approve) {
+        return approve ? "Request approved successfully" : "Request rejected successfully";
+    }
+
+    private List<BookRequestBatchResultDTO> applyDecisions(List<BookRequestDecisionDTO> decisions) {
+        Set<String> ids = decisions.stream().map(BookRequestDecisionDTO::getRequestId).collect(Collectors.toSet());
+        Map<String, BookRequest> requests = bookRequestRepository.findAllForProcessing(ids).stream()
+                .collect(Collectors.toMap(BookRequest::getId, Function.identity()));
+
+        Effects effects = new Effects();
+        List<BookRequest> processed = new ArrayList<>();
+        List<BookRequestBatchResultDTO> results = new ArrayList<>(decisions.size());
+        for (BookRequestDecisionDTO decision : decisions) {
+            BookRequest request = requests.get(decision.getRequestId());
+            if (request == null) {
+                results.add(new BookRequestBatchResultDTO(decision.getRequestId(), false,
+                        "Request not found with ID: " + decision.getRequestId(), null));
+                continue;
+            }
+            try {
+                decide(request, decision.isApprove(), effects);
+                processed.add(request);
+                results.add(new BookRequestBatchResultDTO(decision.getRequestId(), true,
+                        decidedMessage(decision.isApprove()), null));
+            } catch (IllegalStateException e) {
+                results.add(new BookRequestBatchResultDTO(decision.getRequestId(), false, e.getMessage(), null));
+            }
+        }
+
+        applyEffects(effects);
+        bookRequestRepository.saveAll(processed);
+        // Results carry the final state of each request
+        return results.stream()
+                .map(result -> requests.containsKey(result.getRequestId())
+                        ? new BookRequestBatchResultDTO(result.getRequestId(), result.isSuccess(), result.getMessage(),
+                                convertToDTO(requests.get(result.getRequestId())))
+                        : result)
+                .toList();
+    }
+
+    /**
+     * Side effects of one or more decisions that are cheaper to write together: the change of
+     * available copies per book, and the subscriptions to close per copy.
+     */
+    private static final class Effects {
+        private final Map<Integer, Integer> availableDeltas = new HashMap<>();
+        private final Map<Integer, Set<String>> borrowersByCopyId = new HashMap<>();
+    }
+
+    private void applyEffects(Effects effects) {
+        effects.availableDeltas.forEach((bookId, delta) -> {
+            if (delta != 0) bookAvailabilityService.availableChanged(bookId, delta);
+        });
+        if (!effects.borrowersByCopyId.isEmpty()) {
+            subscriptionService.cancelSubscriptionsAfterBorrowing(effects.borrowersByCopyId);
+        }
+    }
+
+    // Validates the decision against the request's current state, then applies it to the loaded entities
+    private void decide(BookRequest request, boolean approve, Effects effects) {
+        String requestId = request.getId();
         if (request.getStatus() != BookRequestStatusEnum.PENDING) {
             throw new IllegalStateException("Request with ID " + requestId + " is not in PENDING state");
         }
@@ -90,19 +288,28 @@ public class BookRequestService {
                 request.setBookLoan(newBookLoan);
                 request.setStatus(BookRequestStatusEnum.ACCEPTED);
                 bookCopy.setStatus(BookCopyStatusEnum.UNAVAILABLE);
+                bookCopy.setReserved(false);
                 bookCopyRepository.save(bookCopy);
-                subscriptionService.cancelSubscriptionAfterBorrowing(bookCopy.getId(), request.getUser().getId());
+                effects.availableDeltas.merge(bookCopy.getOriginalBook().getBookId(), -1, Integer::sum);
+                loanDueScheduler.loanBorrowed(newBookLoan.getId(), newBookLoan.getDueDate());
+                effects.borrowersByCopyId.computeIfAbsent(bookCopy.getId(), id -> new HashSet<>())
+                        .add(request.getUser().getId());
             } else {
                 request.setStatus(BookRequestStatusEnum.DENIED);
+                releaseReservation(bookCopy);
             }
         } else if (request.getType() == BookRequestTypeEnum.RETURNING) {
             if (bookLoan == null) {
                 throw new IllegalStateException("Associated BookLoan not found for RETURNING request with ID: " + requestId);
             }
-            if (!BookLoanStatusEnum.BORROWED.equals(bookLoan.getStatus())) {
-                throw new IllegalStateException("BookLoan with ID " + bookLoan.getId() + " is not in BORROWED state");
+            // A late book can still be returned; returning it also stops its fines
+            if (bookLoan.getStatus() != BookLoanStatusEnum.BORROWED && bookLoan.getStatus() != BookLoanStatusEnum.OVERDUE) {
+                throw new IllegalStateException("BookLoan with ID " + bookLoan.getId() + " is not in BORROWED or OVERDUE state");
             }
             if (approve) {
+                if (bookCopy == null) {
+                    throw new IllegalStateException("BookCopy not found for RETURNING request with ID: " + requestId);
+                }
                 Date currentDate = new Date();
                 bookLoan.setStatus(BookLoanStatusEnum.RETURNED);
                 if (bookLoan.getActualReturnDate() == null) {
@@ -110,19 +317,18 @@ public class BookRequestService {
                 }
                 bookLoan.setCurrentBookRequestId(null);
                 bookLoanService.save(bookLoan);
+                loanDueScheduler.loanReturned(bookLoan.getId());
                 request.setStatus(BookRequestStatusEnum.ACCEPTED);
-                if (bookCopy != null) {
-                    bookCopy.setStatus(BookCopyStatusEnum.AVAILABLE);
-                    bookCopyRepository.save(bookCopy);
-                } else {
-                    throw new IllegalStateException("BookCopy not found for RETURNING request with ID: " + requestId);
+                boolean wasAvailable = bookCopy.getStatus() == BookCopyStatusEnum.AVAILABLE;
+                bookCopy.setStatus(BookCopyStatusEnum.AVAILABLE);
+                bookCopyRepository.save(bookCopy);
+                if (!wasAvailable) {
+                    effects.availableDeltas.merge(bookCopy.getOriginalBook().getBookId(), 1, Integer::sum);
                 }
             } else {
                 request.setStatus(BookRequestStatusEnum.DENIED);
             }
         }
-
-        return convertToDTO(bookRequestRepository.save(request));
     }
 
     public List<BookRequestDTO> listAllRequestsFromUser(String userId) {
@@ -161,12 +367,36 @@ public class BookRequestService {
         return convertToDTO(bookRequestRepository.save(bookRequest));
     }
 
+    /**
+     * Creates a borrowing request for any available copy of a book. The copy is reserved on its
+     * own row under {@code FOR UPDATE SKIP LOCKED}, so concurrent callers for the same book get
+     * distinct copies instead of all racing for the first one. The reservation is released when
+     * the request is denied or canceled.
+     */
+    @Transactional
+    public BookRequestDTO newBorrowingRequestForBook(String userId, Integer bookId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        if (bookRequestRepository.existsPendingRequestForBook(bookId, userId, BookRequestTypeEnum.BORROWING)) {
+            throw new IllegalArgumentException("You already have another pending borrowing request for this book!");
+        }
+        BookCopy bookCopy = bookCopyRepository.claimAvailableCopy(bookId)
+                .flatMap(bookCopyRepository::findById)
+                .orElseThrow(() -> new IllegalArgumentException("No such book copy found!"));
+
+        BookRequest bookRequest = new BookRequest();
+        bookRequest.setUser(user);
+        bookRequest.setBookCopy(bookCopy);
+        bookRequest.setType(BookRequestTypeEnum.BORROWING);
+        bookRequest.setStatus(BookRequestStatusEnum.PENDING);
+        return convertToDTO(bookRequestRepository.save(bookRequest));
+    }
+
     @Transactional
     public BookRequestDTO newReturningRequest(String userId, Integer bookCopyId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
-        BookLoan bookLoan = bookLoanService
-                .findBookLoanByBookCopyIdAndUserIdAndStatus(bookCopyId, userId, BookLoanStatusEnum.BORROWED)
+        BookLoan bookLoan = bookLoanService.findOpenBookLoan(bookCopyId, userId)
                 .orElseThrow(() -> new IllegalArgumentException("Book copy is not borrowed by this user"));
         if (!bookLoan.getUser().getId().equals(userId)) {
             throw new IllegalArgumentException("User did not borrow this book copy!");
@@ -197,9 +427,20 @@ public class BookRequestService {
         }
         // Update book request status
         bookRequest.setStatus(BookRequestStatusEnum.CANCELED);
+        if (bookRequest.getType() == BookRequestTypeEnum.BORROWING && bookRequest.getBookCopy() != null) {
+            releaseReservation(bookRequest.getBookCopy());
+        }
         convertToDTO(bookRequestRepository.save(bookRequest));
     }
 
+    // Makes a copy held by a random borrow claimable again once its request is no longer pending
+    private void releaseReservation(BookCopy bookCopy) {
+        if (bookCopy.isReserved()) {
+            bookCopy.setReserved(false);
+            bookCopyRepository.save(bookCopy);
+        }
+    }
+
     private BookRequestDTO convertToDTO(BookRequest bookRequest) {
         return new BookRequestDTO(
                 bookRequest.getId(),
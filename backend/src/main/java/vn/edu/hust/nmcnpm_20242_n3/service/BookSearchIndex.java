@@ -0,0 +1,404 @@
+package vn.edu.hust.nmcnpm_20242_n3.service;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * In-memory inverted index over book titles and author, category and publisher names.
+ * Every normalized term maps to a sorted posting list of book ids, each tagged with the fields
+ * the term appears in. A query matches books containing all of its terms; the last term also
+ * matches as a prefix (search-as-you-type) and, optionally, terms that are missing from the
+ * index are retried with one typo allowed. Results are ranked by field weight and term rarity.
+ * <p>
+ * Thread-safe: searches share a read lock, updates take the write lock.
+ */
+public class BookSearchIndex {
+
+    // Field bits stored in the posting lists
+    static final int TITLE = 1;
+    static final int AUTHOR = 2;
+    static final int CATEGORY = 4;
+    static final int PUBLISHER = 8;
+
+    private static final float EXACT_MATCH = 1.0f;
+    private static final float PREFIX_MATCH = 0.7f;
+    private static final float FUZZY_MATCH = 0.5f;
+    private static final int MAX_EXPANSIONS = 64;
+    private static final int MIN_FUZZY_LENGTH = 4;
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final NavigableMap<String, Postings> terms = new TreeMap<>();
+    // Book id -> its distinct terms, needed to unindex a book and as a length norm
+    private final Map<Integer, String[]> documentTerms = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * The searchable text of one book.
+     */
+    public record Document(int bookId, String title, Collection<String> authors,
+                           Collection<String> categories, String publisher) {
+    }
+
+    /**
+     * Adds a book to the index, replacing its previous entry if any.
+     */
+    public void put(Document document) {
+        Map<String, Integer> fieldsByTerm = new LinkedHashMap<>();
+        addTerms(fieldsByTerm, document.title(), TITLE);
+        if (document.authors() != null) document.authors().forEach(name -> addTerms(fieldsByTerm, name, AUTHOR));
+        if (document.categories() != null) document.categories().forEach(name -> addTerms(fieldsByTerm, name, CATEGORY));
+        addTerms(fieldsByTerm, document.publisher(), PUBLISHER);
+
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(document.bookId());
+            for (Map.Entry<String, Integer> entry : fieldsByTerm.entrySet()) {
+                terms.computeIfAbsent(entry.getKey(), term -> new Postings())
+                        .add(document.bookId(), entry.getValue());
+            }
+            documentTerms.put(document.bookId(), fieldsByTerm.keySet().toArray(new String[0]));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a book from the index. Unknown ids are ignored.
+     */
+    public void remove(int bookId) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            terms.clear();
+            documentTerms.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentTerms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the books matching every term of the query, best match first.
+     *
+     * @param query The raw query text, normalized the same way as the indexed text.
+     * @param limit The maximum number of ids to return.
+     * @param fuzzy Whether terms missing from the index may match with one typo.
+     * @return The matching book ids, ranked.
+     */
+    public List<Integer> search(String query, int limit, boolean fuzzy) {
+        return search(query, limit, fuzzy, null);
+    }
+
+    /**
+     * Same as {@link #search(String, int, boolean)}, only considering books accepted by the filter.
+     *
+     * @param filter Accepts the book ids that may be returned, or null to accept all.
+     */
+    public List<Integer> search(String query, int limit, boolean fuzzy, IntPredicate filter) {
+        if (limit <= 0) return List.of();
+
+        PriorityQueue<Hit> top = new PriorityQueue<>(limit + 1, Hit.WORST_FIRST);
+        lock.readLock().lock();
+        try {
+            forEachMatch(query, fuzzy, filter, (bookId, score) -> {
+                top.offer(new Hit(bookId, score));
+                if (top.size() > limit) top.poll();
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Hit[] hits = top.toArray(new Hit[0]);
+        Arrays.sort(hits, Hit.WORST_FIRST.reversed());
+        List<Integer> ids = new ArrayList<>(hits.length);
+        for (Hit hit : hits) ids.add(hit.bookId());
+        return ids;
+    }
+
+    /**
+     * @return The ids of every book matching the query, unranked and in ascending order.
+     */
+    public int[] matchingIds(String query, boolean fuzzy) {
+        IntStream.Builder ids = IntStream.builder();
+        lock.readLock().lock();
+        try {
+            forEachMatch(query, fuzzy, null, (bookId, score) -> ids.add(bookId));
+        } finally {
+            lock.readLock().unlock();
+        }
+        return ids.build().sorted().toArray();
+    }
+
+    /**
+     * Calls the consumer once per matching book with its score. Must hold the read lock.
+     */
+    private void forEachMatch(String query, boolean fuzzy, IntPredicate filter, MatchConsumer consumer) {
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (tokens.isEmpty()) return;
+
+        int documentCount = documentTerms.size();
+        List<TermQuery> termQueries = new ArrayList<>(tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            TermQuery termQuery = expand(tokens.get(i), i == tokens.size() - 1, fuzzy, documentCount);
+            if (termQuery.expansions().isEmpty()) return;
+            termQueries.add(termQuery);
+        }
+        // Drive the intersection from the rarest term, probe the others by binary search
+        termQueries.sort(Comparator.comparingLong(TermQuery::cost));
+        TermQuery driving = termQueries.get(0);
+        List<TermQuery> others = termQueries.subList(1, termQueries.size());
+
+        // A broad prefix only drives when it is the only term, and then all of its completions are
+        // scanned: the listed expansions are just the first few and would cut the matches short
+        Collection<Postings> drivingPostings = driving.broadPrefix() != null
+                ? completions(driving.broadPrefix(), true).values()
+                : driving.expansions().stream().map(Expansion::postings).toList();
+        RoaringBitmap seen = drivingPostings.size() > 1 ? new RoaringBitmap() : null;
+        for (Postings postings : drivingPostings) {
+            for (int k = 0; k < postings.size; k++) {
+                int bookId = postings.ids[k];
+                if (filter != null && !filter.test(bookId)) continue;
+                if (seen != null && !seen.checkedAdd(bookId)) continue;
+
+                float score = score(driving, bookId, documentCount);
+                for (TermQuery other : others) {
+                    float termScore = score(other, bookId, documentCount);
+                    if (termScore == 0) {
+                        score = 0;
+                        break;
+                    }
+                    score += termScore;
+                }
+                if (score == 0) continue;
+
+                // Shorter documents rank higher for the same matches
+                consumer.accept(bookId, score / (1 + 0.05f * documentTerms.get(bookId).length));
+            }
+        }
+    }
+
+    /**
+     * Lower-cases and strips diacritics, so "Đất Rừng Phương Nam" and "dat rung phuong nam" match.
+     */
+    public static String normalize(String text) {
+        if (text == null) return "";
+        String lower = text.toLowerCase(Locale.ROOT).replace('đ', 'd');
+        return MARKS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+    }
+
+    public static List<String> tokenize(String text) {
+        String normalized = normalize(text);
+        if (normalized.isBlank()) return List.of();
+        return Arrays.stream(SEPARATORS.split(normalized))
+                .filter(token -> !token.isEmpty())
+                .toList();
+    }
+
+    private static void addTerms(Map<String, Integer> fieldsByTerm, String text, int field) {
+        for (String token : tokenize(text)) {
+            fieldsByTerm.merge(token, field, (a, b) -> a | b);
+        }
+    }
+
+    private void removeUnlocked(int bookId) {
+        String[] previous = documentTerms.remove(bookId);
+        if (previous == null) return;
+        for (String term : previous) {
+            Postings postings = terms.get(term);
+            if (postings != null && postings.remove(bookId) && postings.size == 0) {
+                terms.remove(term);
+            }
+        }
+    }
+
+    private TermQuery expand(String token, boolean allowPrefix, boolean fuzzy, int documentCount) {
+        List<Expansion> expansions = new ArrayList<>();
+        Postings exact = terms.get(token);
+        if (exact != null) expansions.add(new Expansion(exact, EXACT_MATCH * idf(exact, documentCount)));
+
+        if (allowPrefix) {
+            for (Map.Entry<String, Postings> entry : completions(token, false).entrySet()) {
+                if (expansions.size() >= MAX_EXPANSIONS) {
+                    // Too many completions to list: match the prefix against each candidate's own terms
+                    return new TermQuery(expansions, token);
+                }
+                expansions.add(new Expansion(entry.getValue(), PREFIX_MATCH * idf(entry.getValue(), documentCount)));
+            }
+        }
+
+        if (expansions.isEmpty() && fuzzy && token.length() >= MIN_FUZZY_LENGTH) {
+            // Only terms sharing the first letter are considered, which keeps the scan small
+            String first = token.substring(0, 1);
+            String next = String.valueOf((char) (token.charAt(0) + 1));
+            for (Map.Entry<String, Postings> entry : terms.subMap(first, true, next, false).entrySet()) {
+                if (expansions.size() >= MAX_EXPANSIONS) break;
+                if (withinOneEdit(token, entry.getKey())) {
+                    expansions.add(new Expansion(entry.getValue(), FUZZY_MATCH * idf(entry.getValue(), documentCount)));
+                }
+            }
+        }
+        return new TermQuery(expansions, null);
+    }
+
+    private NavigableMap<String, Postings> completions(String prefix, boolean includeExact) {
+        return terms.subMap(prefix, includeExact, prefix + Character.MAX_VALUE, false);
+    }
+
+    private float score(TermQuery termQuery, int bookId, int documentCount) {
+        float best = 0;
+        if (termQuery.broadPrefix() != null) {
+            for (String term : documentTerms.get(bookId)) {
+                if (!term.startsWith(termQuery.broadPrefix())) continue;
+                Postings postings = terms.get(term);
+                float match = term.length() == termQuery.broadPrefix().length() ? EXACT_MATCH : PREFIX_MATCH;
+                best = Math.max(best, match * idf(postings, documentCount) * fieldWeight(postings.fieldsOf(bookId)));
+            }
+            return best;
+        }
+        for (Expansion expansion : termQuery.expansions()) {
+            int fields = expansion.postings().fieldsOf(bookId);
+            if (fields != 0) best = Math.max(best, expansion.weight() * fieldWeight(fields));
+        }
+        return best;
+    }
+
+    private static float fieldWeight(int fields) {
+        float weight = 0;
+        if ((fields & TITLE) != 0) weight += 3;
+        if ((fields & AUTHOR) != 0) weight += 2;
+        if ((fields & CATEGORY) != 0) weight += 1;
+        if ((fields & PUBLISHER) != 0) weight += 1;
+        return weight;
+    }
+
+    private static float idf(Postings postings, int documentCount) {
+        return (float) Math.log(1 + (double) documentCount / postings.size);
+    }
+
+    private static long postingCount(List<Expansion> expansions) {
+        long count = 0;
+        for (Expansion expansion : expansions) count += expansion.postings().size;
+        return count;
+    }
+
+    /**
+     * Damerau-Levenshtein distance of at most one: one insertion, deletion, substitution or transposition.
+     */
+    static boolean withinOneEdit(String a, String b) {
+        int lengthA = a.length();
+        int lengthB = b.length();
+        if (Math.abs(lengthA - lengthB) > 1) return false;
+
+        int i = 0;
+        while (i < lengthA && i < lengthB && a.charAt(i) == b.charAt(i)) i++;
+        if (i == lengthA && i == lengthB) return true;
+
+        if (lengthA == lengthB) {
+            if (a.regionMatches(i + 1, b, i + 1, lengthA - i - 1)) return true;
+            return i + 1 < lengthA && a.charAt(i) == b.charAt(i + 1) && a.charAt(i + 1) == b.charAt(i)
+                    && a.regionMatches(i + 2, b, i + 2, lengthA - i - 2);
+        }
+        if (lengthA > lengthB) return a.regionMatches(i + 1, b, i, lengthB - i);
+        return b.regionMatches(i + 1, a, i, lengthA - i);
+    }
+
+    private interface MatchConsumer {
+        void accept(int bookId, float score);
+    }
+
+    private record Expansion(Postings postings, float weight) {
+    }
+
+    /**
+     * The index terms one query token may match. A broad prefix has more completions than are
+     * listed in {@code expansions}, so it is checked against the candidate's terms instead.
+     */
+    private record TermQuery(List<Expansion> expansions, String broadPrefix) {
+        long cost() {
+            return broadPrefix != null ? Long.MAX_VALUE : postingCount(expansions);
+        }
+    }
+
+    private record Hit(int bookId, float score) {
+        static final Comparator<Hit> WORST_FIRST = Comparator.comparingDouble(Hit::score)
+                .thenComparing(Comparator.comparingInt(Hit::bookId).reversed());
+    }
+
+    /**
+     * Sorted book ids with the field bits of one term. Ids usually arrive in ascending order,
+     * so adding is an append in the common case.
+     */
+    private static final class Postings {
+        private int[] ids = new int[2];
+        private byte[] fields = new byte[2];
+        private int size;
+
+        void add(int bookId, int fieldBits) {
+            int position = size == 0 || ids[size - 1] < bookId ? -(size + 1) : Arrays.binarySearch(ids, 0, size, bookId);
+            if (position >= 0) {
+                fields[position] |= (byte) fieldBits;
+                return;
+            }
+            int insertAt = -(position + 1);
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                fields = Arrays.copyOf(fields, size * 2);
+            }
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            System.arraycopy(fields, insertAt, fields, insertAt + 1, size - insertAt);
+            ids[insertAt] = bookId;
+            fields[insertAt] = (byte) fieldBits;
+            size++;
+        }
+
+        boolean remove(int bookId) {
+            int position = Arrays.binarySearch(ids, 0, size, bookId);
+            if (position < 0) return false;
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            System.arraycopy(fields, position + 1, fields, position, size - position - 1);
+            size--;
+            return true;
+        }
+
+        int fieldsOf(int bookId) {
+            int position = Arrays.binarySearch(ids, 0, size, bookId);
+            return position < 0 ? 0 : fields[position];
+        }
+    }
+}
@@ -2,10 +2,18 @@ package vn.edu.hust.nmcnpm_20242_n3.service;
 
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import vn.edu.hust.nmcnpm_20242_n3.configuration.CacheConfig;
+import vn.edu.hust.nmcnpm_20242_n3.constant.BookSortEnum;
 import vn.edu.hust.nmcnpm_20242_n3.dto.AuthorDTO;
+import vn.edu.hust.nmcnpm_20242_n3.dto.BookCursorPageDTO;
 import vn.edu.hust.nmcnpm_20242_n3.dto.BookDTO;
+import vn.edu.hust.nmcnpm_20242_n3.dto.BookFacetResultDTO;
 import vn.edu.hust.nmcnpm_20242_n3.dto.CategoryDTO;
+import vn.edu.hust.nmcnpm_20242_n3.dto.FacetCountDTO;
 import vn.edu.hust.nmcnpm_20242_n3.entity.Author;
 import vn.edu.hust.nmcnpm_20242_n3.entity.Book;
 import vn.edu.hust.nmcnpm_20242_n3.entity.Category;
@@ -16,6 +24,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import vn.edu.hust.nmcnpm_20242_n3.repository.CategoryRepository;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -28,6 +37,15 @@ public class BookService {
     private final CategoryService categoryService;
     private final AuthorRepository authorRepository;
     private final CategoryRepository categoryRepository;
+    private final BookIndexService bookIndexService;
+    private final CatalogVersionService catalogVersionService;
+    private final SuggestService suggestService;
+
+    @Value("${search.index.max-results:100}")
+    private int maxSearchResults;
+
+    @Value("${search.facets.max-values:20}")
+    private int maxFacetValues;
 
     @Autowired
     public BookService(
@@ -35,13 +53,19 @@ public class BookService {
             AuthorService authorService,
             PublisherService publisherService,
             CategoryService categoryService,
-            AuthorRepository authorRepository, CategoryRepository categoryRepository) {
+            AuthorRepository authorRepository, CategoryRepository categoryRepository,
+            BookIndexService bookIndexService,
+            CatalogVersionService catalogVersionService,
+            SuggestService suggestService) {
         this.bookRepository = bookRepository;
         this.authorService = authorService;
         this.publisherService = publisherService;
         this.categoryService = categoryService;
         this.authorRepository = authorRepository;
         this.categoryRepository = categoryRepository;
+        this.bookIndexService = bookIndexService;
+        this.catalogVersionService = catalogVersionService;
+        this.suggestService = suggestService;
     }
 
     @Transactional
@@ -74,7 +98,11 @@ public class BookService {
                 .map(categoryDTO -> categoryRepository.findById(categoryDTO.getId()).orElse(null))
                 .collect(Collectors.toSet()));
 
-        return bookRepository.save(book);
+        Book saved = bookRepository.save(book);
+        bookIndexService.index(saved);
+        catalogVersionService.bumpBook(saved.getBookId());
+        suggestService.put(SuggestionIndex.Type.TITLE, saved.getBookId(), saved.getTitle());
+        return saved;
     }
 
     public Book getById(int id) {
@@ -82,15 +110,97 @@ public class BookService {
                 .orElseThrow(() -> new IllegalArgumentException("Book not found with ID: " + id));
     }
 
+    /**
+     * Cached read of a single book. The DTO is cached rather than the entity, so callers never
+     * touch lazy associations of a detached instance.
+     */
+    @Cacheable(cacheNames = CacheConfig.BOOK, key = "#id")
+    public BookDTO getDTOById(int id) {
+        return convertToDTO(getById(id));
+    }
+
     public List<Book> findAllBooks() {
-        List<Book> books = new ArrayList<>();
-        bookRepository.findAll().forEach(books::add);
-        return books;
+        return bookRepository.findAllWithPublisher();
     }
 
 
+    /**
+     * Ranked search over titles, authors, categories and publishers through the in-memory index.
+     * Falls back to the SQL title scan while the index is not available.
+     */
     public List<Book> searchByTitle(String title) {
-        return bookRepository.searchByTitle(title);
+        if (!bookIndexService.isReady()) {
+            return bookRepository.searchByTitle(title);
+        }
+        return findAllByIdsInOrder(bookIndexService.search(title, maxSearchResults));
+    }
+
+    /**
+     * Filters by text and by author, category and publisher, and counts the matching books
+     * for every facet value, all from the in-memory indexes.
+     *
+     * @param page The page number, starting at 1.
+     * @throws IllegalStateException if the indexes are not built yet.
+     */
+    public BookFacetResultDTO facetSearch(String query, Integer authorId, Integer categoryId, Integer publisherId,
+                                          int page, int size) {
+        if (page < 1) {
+            throw new IllegalArgumentException("Page number must be 1 or greater.");
+        }
+        if (size < 1 || size > maxSearchResults) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + maxSearchResults + ".");
+        }
+        if (!bookIndexService.isReady()) {
+            throw new IllegalStateException("Search index is not ready yet");
+        }
+
+        Map<BookFacetIndex.Facet, Integer> selected = new EnumMap<>(BookFacetIndex.Facet.class);
+        if (authorId != null) selected.put(BookFacetIndex.Facet.AUTHOR, authorId);
+        if (categoryId != null) selected.put(BookFacetIndex.Facet.CATEGORY, categoryId);
+        if (publisherId != null) selected.put(BookFacetIndex.Facet.PUBLISHER, publisherId);
+
+        BookIndexService.FacetPage result = bookIndexService.facetSearch(query, selected, page, size, maxFacetValues);
+        List<BookDTO> books = convertToDTOs(findAllByIdsInOrder(result.ids()));
+
+        Map<String, List<FacetCountDTO>> facets = new LinkedHashMap<>();
+        facets.put("authors", toFacetCounts(result.counts().get(BookFacetIndex.Facet.AUTHOR)));
+        facets.put("categories", toFacetCounts(result.counts().get(BookFacetIndex.Facet.CATEGORY)));
+        facets.put("publishers", toFacetCounts(result.counts().get(BookFacetIndex.Facet.PUBLISHER)));
+        return new BookFacetResultDTO(books, page, size, result.totalElements(), facets);
+    }
+
+    private List<FacetCountDTO> toFacetCounts(List<BookFacetIndex.Count> counts) {
+        return counts.stream()
+                .map(count -> new FacetCountDTO(count.id(), count.name(), count.count()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Loads books by id in one query, keeping the order of the given ids.
+     */
+    private List<Book> findAllByIdsInOrder(List<Integer> ids) {
+        Map<Integer, Book> books = new HashMap<>();
+        bookRepository.findAllById(ids).forEach(book -> books.put(book.getBookId(), book));
+        return ids.stream().map(books::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    /**
+     * Ranked full-text search combined with optional author, category and publisher filters,
+     * evaluated in a single query.
+     *
+     * @param query The search text, may be empty to filter only.
+     * @param page  The page number, starting at 1.
+     */
+    public Page<Book> fullTextSearch(String query, Integer authorId, Integer categoryId, Integer publisherId,
+                                     int page, int size) {
+        if (page < 1) {
+            throw new IllegalArgumentException("Page number must be 1 or greater.");
+        }
+        if (size < 1 || size > maxSearchResults) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + maxSearchResults + ".");
+        }
+        String text = query == null ? "" : query.trim();
+        return bookRepository.fullTextSearch(text, authorId, categoryId, publisherId, PageRequest.of(page - 1, size));
     }
 
     public List<Book> searchByPublisherId(Integer publisherId) {
@@ -113,14 +223,81 @@ public class BookService {
         return bookPage.getContent();
     }
 
+    /**
+     * Lists books one page at a time by seeking past the last key of the previous page,
+     * so deep pages cost the same as the first one.
+     *
+     * @param cursor       The nextCursor of the previous page, or null for the first page.
+     * @param includeTotal Whether to also run a count query.
+     */
+    public BookCursorPageDTO findBooksByCursor(BookSortEnum sort, String cursor, int size, boolean includeTotal) {
+        if (size < 1 || size > maxSearchResults) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + maxSearchResults + ".");
+        }
+        String after = cursor == null || cursor.isBlank() ? null : decodeCursor(sort, cursor);
+        // One extra row tells whether there is a next page
+        PageRequest limit = PageRequest.ofSize(size + 1);
+
+        List<Book> books = switch (sort) {
+            case ID -> after == null ? bookRepository.findByOrderByBookIdAsc(limit)
+                    : bookRepository.findByBookIdGreaterThanOrderByBookIdAsc(parseCursorId(after), limit);
+            case RECENT -> after == null ? bookRepository.findByOrderByBookIdDesc(limit)
+                    : bookRepository.findByBookIdLessThanOrderByBookIdDesc(parseCursorId(after), limit);
+            case TITLE -> after == null ? bookRepository.findByOrderByTitleAsc(limit)
+                    : bookRepository.findByTitleGreaterThanOrderByTitleAsc(after, limit);
+        };
+
+        String nextCursor = null;
+        if (books.size() > size) {
+            books = books.subList(0, size);
+            Book last = books.get(size - 1);
+            nextCursor = encodeCursor(sort, sort == BookSortEnum.TITLE ? last.getTitle() : String.valueOf(last.getBookId()));
+        }
+        List<BookDTO> dtos = convertToDTOs(books);
+        return new BookCursorPageDTO(dtos, nextCursor, includeTotal ? bookRepository.count() : null);
+    }
+
+    // The cursor is "sort|last key", base64url encoded so clients treat it as opaque
+    private static String encodeCursor(BookSortEnum sort, String lastKey) {
+        String raw = sort.name() + "|" + lastKey;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeCursor(BookSortEnum sort, String cursor) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        String[] parts = raw.split("\\|", 2);
+        if (parts.length != 2 || !parts[0].equals(sort.name())) {
+            throw new IllegalArgumentException("Cursor does not belong to sort order " + sort.name().toLowerCase());
+        }
+        return parts[1];
+    }
+
+    private static int parseCursorId(String lastKey) {
+        try {
+            return Integer.parseInt(lastKey);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    @CacheEvict(cacheNames = CacheConfig.BOOK, key = "#id")
     @Transactional
     public void deleteById(Integer id) {
         if (!bookRepository.existsById(id)) {
             throw new IllegalArgumentException("Book with ID " + id + " does not exist");
         }
         bookRepository.deleteById(id);
+        bookIndexService.remove(id);
+        catalogVersionService.bumpBook(id);
+        suggestService.remove(SuggestionIndex.Type.TITLE, id);
     }
 
+    @CacheEvict(cacheNames = CacheConfig.BOOK, key = "#id")
     public Book updateById(Integer id, BookDTO bookDTO){
         Book book = bookRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Book not found"));
@@ -145,8 +322,47 @@ public class BookService {
                 .map(categoryDTO -> categoryRepository.findById(categoryDTO.getId()).orElse(null))
                 .collect(Collectors.toSet()));
 
-        return bookRepository.save(book);
+        Book saved = bookRepository.save(book);
+        bookIndexService.index(saved);
+        catalogVersionService.bumpBook(saved.getBookId());
+        suggestService.put(SuggestionIndex.Type.TITLE, saved.getBookId(), saved.getTitle());
+        return saved;
     }
+    /**
+     * Converts a list of books with a fixed number of queries: the author and category ids of
+     * all books are read in one query each instead of initializing every book's collections one
+     * by one. The books are expected to come with their publisher already loaded.
+     */
+    public List<BookDTO> convertToDTOs(List<Book> books) {
+        Map<Integer, Set<Integer>> authorIds = new HashMap<>();
+        Map<Integer, Set<Integer>> categoryIds = new HashMap<>();
+        if (!books.isEmpty()) {
+            Integer[] ids = books.stream().map(Book::getBookId).toArray(Integer[]::new);
+            // Rows of [bookId, id]
+            bookRepository.findAuthorIdsByBookIds(ids).forEach(row ->
+                    authorIds.computeIfAbsent((Integer) row[0], id -> new HashSet<>()).add((Integer) row[1]));
+            bookRepository.findCategoryIdsByBookIds(ids).forEach(row ->
+                    categoryIds.computeIfAbsent((Integer) row[0], id -> new HashSet<>()).add((Integer) row[1]));
+        }
+
+        List<BookDTO> dtos = new ArrayList<>(books.size());
+        for (Book book : books) {
+            BookDTO dto = new BookDTO();
+            dto.setId(book.getBookId());
+            dto.setTitle(book.getTitle());
+            dto.setDescription(book.getDescription());
+            if (book.getPublisher() != null) {
+                dto.setPublisherId(book.getPublisher().getId());
+            }
+            dto.setAuthorIds(authorIds.getOrDefault(book.getBookId(), new HashSet<>()));
+            dto.setCategoryIds(categoryIds.getOrDefault(book.getBookId(), new HashSet<>()));
+            dto.setTotalCopies(book.getTotalCopies());
+            dto.setAvailableCopies(book.getAvailableCopies());
+            dtos.add(dto);
+        }
+        return dtos;
+    }
+
     public BookDTO convertToDTO(Book book) {
         BookDTO dto = new BookDTO();
         dto.setId(book.getBookId());
@@ -163,6 +379,8 @@ public class BookService {
                 .map(Category::getId)
                 .collect(Collectors.toSet());
         dto.setCategoryIds(categoryIds);
+        dto.setTotalCopies(book.getTotalCopies());
+        dto.setAvailableCopies(book.getAvailableCopies());
 
         return dto;
     }
@@ -0,0 +1,89 @@
+package vn.edu.hust.nmcnpm_20242_n3.service;
+
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version counters behind the ETags of the catalog endpoints.
+ * Write methods bump the counter of what they changed once their transaction has committed, so a
+ * tag is never handed out for data that could still be rolled back. Readers take the tag before
+ * reading, and comparing an If-None-Match header against it needs no database access.
+ * <p>
+ * Counters live in memory and tags carry a per-start epoch, so a restart invalidates every tag
+ * instead of reusing one for different content.
+ */
+@Service
+public class CatalogVersionService {
+
+    public enum Resource { BOOKS, CATEGORIES, AUTHORS, PUBLISHERS }
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<Resource, AtomicLong> versions = new EnumMap<>(Resource.class);
+    private final Map<Integer, AtomicLong> bookVersions = new ConcurrentHashMap<>();
+    // Bumped when a change touches every book, e.g. a deleted author disappearing from their books
+    private final AtomicLong bookGeneration = new AtomicLong();
+
+    public CatalogVersionService() {
+        for (Resource resource : Resource.values()) {
+            versions.put(resource, new AtomicLong());
+        }
+    }
+
+    /**
+     * @return The strong ETag of a whole collection, quoted.
+     */
+    public String etag(Resource resource) {
+        return "\"" + resource.name().toLowerCase(Locale.ROOT) + "-" + epoch + "-" + versions.get(resource).get() + "\"";
+    }
+
+    /**
+     * @return The strong ETag of a single book, quoted.
+     */
+    public String bookEtag(int bookId) {
+        AtomicLong version = bookVersions.get(bookId);
+        return "\"book-" + bookId + "-" + epoch + "-" + bookGeneration.get() + "-" + (version == null ? 0 : version.get()) + "\"";
+    }
+
+    public void bump(Resource resource) {
+        AfterCommit.run(() -> versions.get(resource).incrementAndGet());
+    }
+
+    /**
+     * Bumps one book and the book collection.
+     */
+    public void bumpBook(int bookId) {
+        AfterCommit.run(() -> {
+            bookVersions.computeIfAbsent(bookId, id -> new AtomicLong()).incrementAndGet();
+            versions.get(Resource.BOOKS).incrementAndGet();
+        });
+    }
+
+    /**
+     * Bumps every book and the book collection.
+     */
+    public void bumpAllBooks() {
+        AfterCommit.run(() -> {
+            bookGeneration.incrementAndGet();
+            versions.get(Resource.BOOKS).incrementAndGet();
+        });
+    }
+
+    /**
+     * Weak comparison as required for If-None-Match: "W/" prefixes are ignored and "*" matches anything.
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) return true;
+            if (tag.startsWith("W/")) tag = tag.substring(2);
+            if (tag.equals(etag)) return true;
+        }
+        return false;
+    }
+}
@@ -2,7 +2,11 @@ package vn.edu.hust.nmcnpm_20242_n3.service;
 
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
+import vn.edu.hust.nmcnpm_20242_n3.configuration.CacheConfig;
 import vn.edu.hust.nmcnpm_20242_n3.dto.CategoryDTO;
 import vn.edu.hust.nmcnpm_20242_n3.entity.Book;
 import vn.edu.hust.nmcnpm_20242_n3.entity.Category;
@@ -15,12 +19,18 @@ import java.util.Optional;
 public class CategoryService {
 
     private final CategoryRepository categoryRepository;
+    private final CatalogVersionService catalogVersionService;
+    private final BookIndexService bookIndexService;
 
     @Autowired
-    public CategoryService(CategoryRepository categoryRepository) {
+    public CategoryService(CategoryRepository categoryRepository, CatalogVersionService catalogVersionService,
+                           BookIndexService bookIndexService) {
         this.categoryRepository = categoryRepository;
+        this.catalogVersionService = catalogVersionService;
+        this.bookIndexService = bookIndexService;
     }
 
+    @Cacheable(cacheNames = CacheConfig.CATEGORIES, key = CacheConfig.ALL)
     public List<CategoryDTO> getAllCategories() {
         List<Category> categories = (List<Category>) categoryRepository.findAll();
         
@@ -35,33 +45,52 @@ public class CategoryService {
                 .map(this::convertToDTO);
     }
 
+    @Cacheable(cacheNames = CacheConfig.CATEGORY, key = "#id")
     public CategoryDTO findById(int id) {
         return categoryRepository.findById(id)
                 .map(this::convertToDTO)
                 .orElseThrow(() -> new IllegalArgumentException("Category not found with ID: " + id));
     }
 
+    @CacheEvict(cacheNames = CacheConfig.CATEGORIES, key = CacheConfig.ALL)
     public CategoryDTO addCategory(CategoryDTO dto) {
         if (categoryRepository.existsByName(dto.getName())) {
             throw new IllegalArgumentException("Category with name " + dto.getName() + " already exists");
         }
         Category category = new Category();
         category.setName(dto.getName());
-        return convertToDTO(categoryRepository.save(category));
+        Category saved = categoryRepository.save(category);
+        catalogVersionService.bump(CatalogVersionService.Resource.CATEGORIES);
+        return convertToDTO(saved);
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CATEGORIES, key = CacheConfig.ALL),
+            @CacheEvict(cacheNames = CacheConfig.CATEGORY, key = "#id")
+    })
     public CategoryDTO updateById(int id, CategoryDTO dto) {
         Category existingCategory = categoryRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Category not found"));
         existingCategory.setName(dto.getName());
-        return convertToDTO(categoryRepository.save(existingCategory));
+        Category saved = categoryRepository.save(existingCategory);
+        catalogVersionService.bump(CatalogVersionService.Resource.CATEGORIES);
+        // Books are searchable by their categories' names
+        bookIndexService.reindexBooksWith(BookFacetIndex.Facet.CATEGORY, saved.getId());
+        return convertToDTO(saved);
     }
 
+    // Cached books list their category ids, so they are dropped as well
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CATEGORIES, key = CacheConfig.ALL),
+            @CacheEvict(cacheNames = CacheConfig.CATEGORY, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.BOOK, allEntries = true)
+    })
     @Transactional
     public void deleteById(int id) {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Category with ID " + id + " does not exist"));
                 
+        bookIndexService.reindexBooksWith(BookFacetIndex.Facet.CATEGORY, id);
         if (category.getBooks() != null) {
             for (Book book : category.getBooks()) {
                 book.getCategories().remove(category);
@@ -69,6 +98,9 @@ public class CategoryService {
         }
         
         categoryRepository.deleteById(id);
+        catalogVersionService.bump(CatalogVersionService.Resource.CATEGORIES);
+        // Books list the ids of their categories
+        catalogVersionService.bumpAllBooks();
     }
     
     private CategoryDTO convertToDTO(Category category) {
@@ -0,0 +1,162 @@
+package vn.edu.hust.nmcnpm_20242_n3.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Bounded, TTL-evicted cache of recently verified credentials.
+ * Raw passwords are never stored: each entry keeps an HMAC of the password
+ * under a random per-process key, together with the principal that was loaded
+ * when the password was last verified with the real password encoder.
+ */
+@Service
+public class CredentialCacheService {
+    private static final String DIGEST_ALGORITHM = "HmacSHA256";
+
+    private final long ttlMillis;
+    private final SecretKeySpec digestKey;
+    private final Map<String, Entry> entries;
+    // Incremented by every invalidation, guarded by the entries lock
+    private long generation;
+
+    public CredentialCacheService(@Value("${security.credential-cache.ttl-seconds:300}") long ttlSeconds,
+                                  @Value("${security.credential-cache.max-size:10000}") int maxSize) {
+        this.ttlMillis = ttlSeconds * 1000;
+
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        this.digestKey = new SecretKeySpec(key, DIGEST_ALGORITHM);
+
+        // Access-ordered map, so the least recently used entry is evicted first
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    /**
+     * Returns the cached principal if the given password matches the one last verified
+     * for this username and the entry has not expired.
+     *
+     * @param username The username being authenticated.
+     * @param rawPassword The password presented by the client.
+     * @return The cached principal, or empty if the caller must run a full verification.
+     */
+    public Optional<UserDetails> lookup(String username, String rawPassword) {
+        if (ttlMillis <= 0) return Optional.empty();
+
+        Entry entry = entries.get(username);
+        if (entry == null) return Optional.empty();
+
+        if (entry.expiresAt() < System.currentTimeMillis()) {
+            entries.remove(username, entry);
+            return Optional.empty();
+        }
+
+        if (!MessageDigest.isEqual(entry.digest(), digest(rawPassword))) {
+            return Optional.empty();
+        }
+        return Optional.of(entry.principal());
+    }
+
+    /**
+     * Records a successfully verified credential.
+     *
+     * @param username The authenticated username.
+     * @param rawPassword The password that was verified.
+     * @param principal The principal loaded during verification.
+     */
+    public void put(String username, String rawPassword, UserDetails principal) {
+        put(username, rawPassword, principal, generation());
+    }
+
+    /**
+     * Records a successfully verified credential, unless a credential was invalidated since
+     * {@code generation} was read: the principal may then have been loaded from a row that has
+     * changed since.
+     *
+     * @param generation The value of {@link #generation()} read before the principal was loaded.
+     */
+    public void put(String username, String rawPassword, UserDetails principal, long generation) {
+        if (ttlMillis <= 0) return;
+        Entry entry = new Entry(digest(rawPassword), principal, System.currentTimeMillis() + ttlMillis);
+        synchronized (entries) {
+            if (generation == this.generation) {
+                entries.put(username, entry);
+            }
+        }
+    }
+
+    public long generation() {
+        synchronized (entries) {
+            return generation;
+        }
+    }
+
+    /**
+     * Drops the cached credential of a user, e.g. after the user was updated or deleted.
+     *
+     * @param username The username to invalidate. Ignored if null.
+     */
+    public void invalidate(String username) {
+        if (username != null) {
+            synchronized (entries) {
+                generation++;
+                entries.remove(username);
+            }
+        }
+    }
+
+    /**
+     * Drops the cached credentials of the given usernames once the surrounding transaction, if
+     * any, has committed. Dropping them earlier would let a login that still reads the old row
+     * cache the old password or role again for a full TTL.
+     *
+     * @param usernames The usernames to invalidate, e.g. the old and the new one of a renamed user.
+     */
+    public void invalidateAfterCommit(String... usernames) {
+        AfterCommit.run(() -> {
+            for (String username : usernames) {
+                invalidate(username);
+            }
+        });
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            generation++;
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private byte[] digest(String rawPassword) {
+        try {
+            Mac mac = Mac.getInstance(DIGEST_ALGORITHM);
+            mac.init(digestKey);
+            return mac.doFinal(rawPassword.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to compute credential digest", e);
+        }
+    }
+
+    private record Entry(byte[] digest, UserDetails principal, long expiresAt) {
+    }
+}
@@ -0,0 +1,80 @@
+package vn.edu.hust.nmcnpm_20242_n3.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import vn.edu.hust.nmcnpm_20242_n3.repository.FineRepository;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accrues per-day fines on OVERDUE loans.
+ * <p>
+ * Each loan keeps a watermark up to which it has been fined, starting at its due date. A run
+ * only touches loans whose watermark is at least one day behind, writes one fine per loan for
+ * the whole days elapsed and moves the watermark by exactly those days, so the remainder of a
+ * day carries over and re-running never fines the same day twice. Loans are processed by one
+ * INSERT ... SELECT of at most {@code fines.accrual.chunk-size} loans per transaction. Loans
+ * locked by other transactions are skipped, so a chunk can come back short while others are still
+ * behind; chunks are taken until one writes nothing.
+ */
+@Service
+public class FineAccrualService {
+    private static final Logger logger = LoggerFactory.getLogger(FineAccrualService.class);
+
+    private final FineRepository fineRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Timer accrualTimer;
+    private final Counter accruedCounter;
+
+    @Value("${fines.accrual.daily-rate:1.0}")
+    private double dailyRate;
+
+    @Value("${fines.accrual.chunk-size:5000}")
+    private int chunkSize;
+
+    public FineAccrualService(FineRepository fineRepository, PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry) {
+        this.fineRepository = fineRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.accrualTimer = Timer.builder("fines.accrual")
+                .description("Time spent accruing overdue fines")
+                .register(meterRegistry);
+        this.accruedCounter = Counter.builder("fines.accrual.written")
+                .description("Overdue fines written by the accrual job")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${fines.accrual.cron:0 30 * * * ?}")
+    public void accrueScheduled() {
+        accrueOverdueFines();
+    }
+
+    /**
+     * @return The number of fines written.
+     */
+    public int accrueOverdueFines() {
+        long start = System.nanoTime();
+        Date now = new Date();
+        Date cutoff = new Date(now.getTime() - TimeUnit.DAYS.toMillis(1));
+        int total = 0;
+        int written;
+        do {
+            written = transactionTemplate.execute(status ->
+                    fineRepository.accrueOverdueFines(now, cutoff, dailyRate, chunkSize));
+            accruedCounter.increment(written);
+            total += written;
+        } while (written > 0);
+        accrualTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        logger.info("Fine accrual wrote {} fines in {} ms", total, (System.nanoTime() - start) / 1_000_000);
+        return total;
+    }
+}
@@ -0,0 +1,201 @@
+package vn.edu.hust.nmcnpm_20242_n3.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import vn.edu.hust.nmcnpm_20242_n3.repository.BookLoanRepository;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Marks loans OVERDUE within a tick of their due time, instead of waiting for the nightly sweep.
+ * <p>
+ * Due times of BORROWED loans are kept in a {@link LoanDueWheel}. At startup the overdue sweep
+ * catches up on loans that fell due while the application was down, then the loans due within
+ * {@code loans.due-wheel.horizon-hours} are loaded by an indexed range query; the horizon is
+ * extended every {@code loans.due-wheel.reload-ms}, so memory follows the loans due soon rather
+ * than all open loans. Loans borrowed or returned in between are added or removed after commit.
+ * Every tick marks the loans that fell due with bulk UPDATEs of at most
+ * {@code loans.overdue.chunk-size} ids each, the same bound as the sweep, so a burst after a pause
+ * or clock jump stays within the driver's bind parameter limit. Marked loans are passed to the
+ * {@link OverdueLoanListener}s. The nightly sweep stays as a backstop.
+ * <p>
+ * Ticks run on their own thread rather than on the shared {@code @Scheduled} pool, so a long
+ * sweep, rebuild or accrual job can never hold them back.
+ */
+@Service
+public class LoanDueScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(LoanDueScheduler.class);
+
+    private final BookLoanRepository bookLoanRepository;
+    private final BookLoanService bookLoanService;
+    private final ObjectProvider<OverdueLoanListener> listeners;
+    private final TransactionTemplate transactionTemplate;
+    private final LoanDueWheel wheel;
+    private final long tickMillis;
+    private final long horizonMillis;
+    private final int chunkSize;
+    private final ScheduledExecutorService tickExecutor;
+    // End of the due range loaded so far; null until the startup load
+    private Date loadedUntil;
+
+    public LoanDueScheduler(BookLoanRepository bookLoanRepository, BookLoanService bookLoanService,
+                            ObjectProvider<OverdueLoanListener> listeners, PlatformTransactionManager transactionManager,
+                            @Value("${loans.due-wheel.tick-ms:1000}") long tickMillis,
+                            @Value("${loans.due-wheel.horizon-hours:48}") long horizonHours,
+                            @Value("${loans.overdue.chunk-size:1000}") int chunkSize) {
+        this.bookLoanRepository = bookLoanRepository;
+        this.bookLoanService = bookLoanService;
+        this.listeners = listeners;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.wheel = new LoanDueWheel(tickMillis, System.currentTimeMillis());
+        this.tickMillis = tickMillis;
+        this.horizonMillis = TimeUnit.HOURS.toMillis(horizonHours);
+        this.chunkSize = chunkSize;
+        this.tickExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "loan-due-wheel");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        load();
+        tickExecutor.scheduleWithFixedDelay(this::tickSafely, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        tickExecutor.shutdownNow();
+    }
+
+    void load() {
+        // Loans due from here on are loaded into the wheel, those due earlier are marked by the sweep
+        synchronized (wheel) {
+            loadedUntil = new Date();
+        }
+        bookLoanService.sweepOverdueLoans(this::notifyListeners);
+        extendHorizon();
+        logger.info("Loan due wheel loaded with {} loans", scheduledLoans());
+    }
+
+    @Scheduled(fixedDelayString = "${loans.due-wheel.reload-ms:3600000}",
+            initialDelayString = "${loans.due-wheel.reload-ms:3600000}")
+    public void extendHorizon() {
+        extendHorizon(System.currentTimeMillis());
+    }
+
+    void extendHorizon(long now) {
+        Date from;
+        synchronized (wheel) {
+            if (loadedUntil == null) {
+                return;
+            }
+            from = loadedUntil;
+        }
+        Date until = new Date(now + horizonMillis);
+        if (!until.after(from)) {
+            return;
+        }
+        List<Object[]> rows = bookLoanRepository.findBorrowedDueBetween(from, until);
+        synchronized (wheel) {
+            for (Object[] row : rows) {
+                wheel.schedule((String) row[0], ((Date) row[1]).getTime());
+            }
+            loadedUntil = until;
+        }
+    }
+
+    // An exception escaping a fixed-delay task would cancel all further ticks
+    private void tickSafely() {
+        try {
+            tick();
+        } catch (RuntimeException e) {
+            logger.error("Loan due wheel tick failed", e);
+        }
+    }
+
+    void tick() {
+        List<String> due;
+        synchronized (wheel) {
+            due = wheel.advance(System.currentTimeMillis());
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+        Date now = new Date();
+        for (int from = 0; from < due.size(); from += chunkSize) {
+            List<String> chunk = due.subList(from, Math.min(from + chunkSize, due.size()));
+            // Loans returned meanwhile are no longer BORROWED and are skipped by the update
+            List<String> marked = transactionTemplate.execute(status -> bookLoanRepository.markOverdueByIds(chunk, now));
+            if (!marked.isEmpty()) {
+                notifyListeners(marked);
+            }
+        }
+    }
+
+    @Scheduled(cron = "0 0 4 * * ?") // Every day at 4 AM
+    public void sweepBackstop() {
+        bookLoanService.sweepOverdueLoans(this::notifyListeners);
+    }
+
+    /**
+     * Schedules a loan that has just been borrowed, once the transaction commits. Loans due
+     * beyond the loaded horizon are left to the next horizon extension.
+     */
+    public void loanBorrowed(String loanId, Date dueDate) {
+        if (dueDate == null) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            synchronized (wheel) {
+                if (loadedUntil != null && dueDate.before(loadedUntil)) {
+                    wheel.schedule(loanId, dueDate.getTime());
+                }
+            }
+        });
+    }
+
+    public void loanReturned(String loanId) {
+        AfterCommit.run(() -> {
+            synchronized (wheel) {
+                wheel.cancel(loanId);
+            }
+        });
+    }
+
+    public boolean isScheduled(String loanId) {
+        synchronized (wheel) {
+            return wheel.isScheduled(loanId);
+        }
+    }
+
+    public int scheduledLoans() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+
+    private void notifyListeners(List<String> loanIds) {
+        listeners.orderedStream().forEach(listener -> {
+            try {
+                listener.loansOverdue(loanIds);
+            } catch (RuntimeException e) {
+                logger.error("Overdue loan listener {} failed", listener.getClass().getSimpleName(), e);
+            }
+        });
+    }
+}
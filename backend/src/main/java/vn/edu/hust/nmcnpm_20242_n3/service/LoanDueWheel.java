@@ -0,0 +1,148 @@
+package vn.edu.hust.nmcnpm_20242_n3.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hierarchical timing wheel of loan due times.
+ * <p>
+ * Time advances in ticks of a fixed length. Each of the {@value #LEVELS} levels has
+ * {@value #SLOTS} slots, and a slot of level n spans 64^n ticks, so with one-second ticks the
+ * wheel covers about 34 years. A loan sits in the lowest level whose span still reaches its due
+ * tick; when the clock enters a higher-level slot, its loans are moved down a level, until they
+ * reach level 0 and fire in the tick they are due. Scheduling, cancelling and each tick are
+ * O(1) amortized, however many loans are waiting.
+ * <p>
+ * A loan only fires while it is still the live entry for its id, so rescheduling or cancelling
+ * leaves the old entry in its slot to be dropped when reached. Not thread-safe.
+ */
+public class LoanDueWheel {
+
+    static final int LEVELS = 5;
+    static final int SLOT_BITS = 6;
+    static final int SLOTS = 1 << SLOT_BITS;
+
+    private record Entry(String loanId, long dueTick) {
+    }
+
+    private final long tickMillis;
+    @SuppressWarnings("unchecked")
+    private final List<Entry>[][] slots = new List[LEVELS][SLOTS];
+    private final Map<String, Entry> live = new HashMap<>();
+    // Entries due in the current or an earlier tick, and those beyond the top level
+    private List<Entry> expired = new ArrayList<>();
+    private List<Entry> overflow = new ArrayList<>();
+    private long currentTick;
+
+    public LoanDueWheel(long tickMillis, long startMillis) {
+        if (tickMillis < 1) {
+            throw new IllegalArgumentException("Tick must be at least one millisecond");
+        }
+        this.tickMillis = tickMillis;
+        this.currentTick = startMillis / tickMillis;
+        for (List<Entry>[] level : slots) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                level[slot] = new ArrayList<>();
+            }
+        }
+    }
+
+    /**
+     * Schedules the loan to fire at its due time, replacing any earlier schedule of the same loan.
+     * A due time that has already passed fires on the next {@link #advance(long)}.
+     */
+    public void schedule(String loanId, long dueMillis) {
+        // Round up, so that a loan never fires before it is due
+        Entry entry = new Entry(loanId, Math.floorDiv(dueMillis + tickMillis - 1, tickMillis));
+        live.put(loanId, entry);
+        place(entry);
+    }
+
+    public void cancel(String loanId) {
+        live.remove(loanId);
+    }
+
+    public boolean isScheduled(String loanId) {
+        return live.containsKey(loanId);
+    }
+
+    public int size() {
+        return live.size();
+    }
+
+    /**
+     * Moves the clock forward to {@code nowMillis}.
+     *
+     * @return The loans that fell due since the last call.
+     */
+    public List<String> advance(long nowMillis) {
+        List<String> due = new ArrayList<>();
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade();
+            List<Entry> slot = slots[0][(int) (currentTick & (SLOTS - 1))];
+            if (!slot.isEmpty()) {
+                List<Entry> entries = new ArrayList<>(slot);
+                slot.clear();
+                entries.forEach(entry -> fire(entry, due));
+            }
+        }
+        // Scheduled in the past, or moved down the wheel in their own due tick
+        List<Entry> late = expired;
+        expired = new ArrayList<>();
+        late.forEach(entry -> fire(entry, due));
+        return due;
+    }
+
+    private void fire(Entry entry, List<String> due) {
+        if (live.get(entry.loanId()) == entry) {
+            live.remove(entry.loanId());
+            due.add(entry.loanId());
+        }
+    }
+
+    // Moves the entries of every higher-level slot the clock has just entered down the wheel
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            int shift = SLOT_BITS * level;
+            if ((currentTick & ((1L << shift) - 1)) != 0) {
+                return;
+            }
+            List<Entry> slot = slots[level][(int) ((currentTick >>> shift) & (SLOTS - 1))];
+            if (!slot.isEmpty()) {
+                List<Entry> entries = new ArrayList<>(slot);
+                slot.clear();
+                entries.forEach(this::placeIfLive);
+            }
+            if (level == LEVELS - 1 && !overflow.isEmpty()) {
+                List<Entry> entries = overflow;
+                overflow = new ArrayList<>();
+                entries.forEach(this::placeIfLive);
+            }
+        }
+    }
+
+    private void placeIfLive(Entry entry) {
+        if (live.get(entry.loanId()) == entry) {
+            place(entry);
+        }
+    }
+
+    private void place(Entry entry) {
+        long delta = entry.dueTick() - currentTick;
+        if (delta <= 0) {
+            expired.add(entry);
+            return;
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            if (delta < 1L << (SLOT_BITS * (level + 1))) {
+                slots[level][(int) ((entry.dueTick() >>> (SLOT_BITS * level)) & (SLOTS - 1))].add(entry);
+                return;
+            }
+        }
+        overflow.add(entry);
+    }
+}
@@ -0,0 +1,13 @@
+package vn.edu.hust.nmcnpm_20242_n3.service;
+
+import java.util.List;
+
+/**
+ * Follow-up work for loans that have just been marked OVERDUE, such as fines or notifications.
+ * Called after the status change has committed, from the scheduler thread; implementations
+ * should not block for long.
+ */
+public interface OverdueLoanListener {
+
+    void loansOverdue(List<String> loanIds);
+}
@@ -2,7 +2,11 @@ package vn.edu.hust.nmcnpm_20242_n3.service;
 
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
+import vn.edu.hust.nmcnpm_20242_n3.configuration.CacheConfig;
 import vn.edu.hust.nmcnpm_20242_n3.dto.PublisherDTO;
 import vn.edu.hust.nmcnpm_20242_n3.entity.Book;
 import vn.edu.hust.nmcnpm_20242_n3.entity.Publisher;
@@ -15,12 +19,20 @@ import java.util.Optional;
 public class PublisherService {
 
     private final PublisherRepository publisherRepository;
+    private final CatalogVersionService catalogVersionService;
+    private final SuggestService suggestService;
+    private final BookIndexService bookIndexService;
 
     @Autowired
-    public PublisherService(PublisherRepository publisherRepository) {
+    public PublisherService(PublisherRepository publisherRepository, CatalogVersionService catalogVersionService,
+                        SuggestService suggestService, BookIndexService bookIndexService) {
         this.publisherRepository = publisherRepository;
+        this.catalogVersionService = catalogVersionService;
+        this.suggestService = suggestService;
+        this.bookIndexService = bookIndexService;
     }
 
+    @Cacheable(cacheNames = CacheConfig.PUBLISHERS, key = CacheConfig.ALL)
     public List<PublisherDTO> getAllPublishers() {
         List<Publisher> publishers = (List<Publisher>) publisherRepository.findAll();
         
@@ -40,38 +52,63 @@ public class PublisherService {
                 .orElseThrow(() -> new IllegalArgumentException("Publisher not found with ID: " + id));
     }
 
+    @Cacheable(cacheNames = CacheConfig.PUBLISHER, key = "#id")
     public PublisherDTO getPublisherById(int id) {
         return publisherRepository.findById(id)
                 .map(this::convertToDTO)
                 .orElseThrow(() -> new IllegalArgumentException("Publisher not found with ID: " + id));
     }
 
+    @CacheEvict(cacheNames = CacheConfig.PUBLISHERS, key = CacheConfig.ALL)
     public PublisherDTO addPublisher(PublisherDTO dto) {
         if (publisherRepository.existsByName(dto.getName())) {
             throw new IllegalArgumentException("Publisher with name " + dto.getName() + " already exists");
         }
         Publisher publisher = new Publisher();
         publisher.setName(dto.getName());
-        return convertToDTO(publisherRepository.save(publisher));
+        Publisher saved = publisherRepository.save(publisher);
+        catalogVersionService.bump(CatalogVersionService.Resource.PUBLISHERS);
+        suggestService.put(SuggestionIndex.Type.PUBLISHER, saved.getId(), saved.getName());
+        return convertToDTO(saved);
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.PUBLISHERS, key = CacheConfig.ALL),
+            @CacheEvict(cacheNames = CacheConfig.PUBLISHER, key = "#id")
+    })
     public PublisherDTO updateById(int id, PublisherDTO dto) {
         Publisher existingPublisher = publisherRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Publisher not found"));
         existingPublisher.setName(dto.getName());
-        return convertToDTO(publisherRepository.save(existingPublisher));
+        Publisher saved = publisherRepository.save(existingPublisher);
+        catalogVersionService.bump(CatalogVersionService.Resource.PUBLISHERS);
+        suggestService.put(SuggestionIndex.Type.PUBLISHER, saved.getId(), saved.getName());
+        // Books are searchable by their publisher's name
+        bookIndexService.reindexBooksWith(BookFacetIndex.Facet.PUBLISHER, saved.getId());
+        return convertToDTO(saved);
     }
 
+    // Cached books carry their publisher id, so they are dropped as well
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.PUBLISHERS, key = CacheConfig.ALL),
+            @CacheEvict(cacheNames = CacheConfig.PUBLISHER, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.BOOK, allEntries = true)
+    })
     @Transactional
     public void deleteById(int id) {
         Publisher publisher = publisherRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Publisher with ID " + id + " does not exist"));
 
+        bookIndexService.reindexBooksWith(BookFacetIndex.Facet.PUBLISHER, id);
         for (Book book : publisher.getBooks()) {
             book.setPublisher(null); // Unlink books from publisher
         }
 
         publisherRepository.deleteById(id);
+        suggestService.remove(SuggestionIndex.Type.PUBLISHER, id);
+        catalogVersionService.bump(CatalogVersionService.Resource.PUBLISHERS);
+        // Books carry their publisher id
+        catalogVersionService.bumpAllBooks();
     }
     
     private PublisherDTO convertToDTO(Publisher publisher) {
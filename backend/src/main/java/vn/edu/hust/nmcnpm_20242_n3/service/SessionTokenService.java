@@ -0,0 +1,237 @@
+package vn.edu.hust.nmcnpm_20242_n3.service;
+
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.AuthenticatedPrincipal;
+import org.springframework.stereotype.Service;
+import vn.edu.hust.nmcnpm_20242_n3.entity.RevokedToken;
+import vn.edu.hust.nmcnpm_20242_n3.repository.RevokedTokenRepository;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Issues and verifies compact HMAC-signed session tokens.
+ * A token carries the user id, username, role and expiry, so a request bearing one can be
+ * authenticated without touching the database. Revocations are written to the
+ * {@code revoked_tokens} table and mirrored in memory on every node by a periodic sync.
+ */
+@Service
+public class SessionTokenService {
+    private static final Logger logger = LoggerFactory.getLogger(SessionTokenService.class);
+
+    public static final String BEARER_PREFIX = "Bearer ";
+    private static final String VERSION = "v1";
+    private static final String SIGNATURE_ALGORITHM = "HmacSHA256";
+    private static final String USER_REVOCATION_PREFIX = "user:";
+    private static final long SYNC_OVERLAP_MILLIS = 5000;
+    // HMAC-SHA256 keys shorter than the hash output weaken the signature
+    static final int MIN_SECRET_BYTES = 32;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final boolean enabled;
+    private final long ttlMillis;
+    private final SecretKeySpec signingKey;
+
+    // Revocation id -> revocation entry, refreshed from the database by syncRevocations()
+    private final Map<String, RevokedToken> revocations = new ConcurrentHashMap<>();
+    private volatile Date lastSync = new Date(0);
+
+    public SessionTokenService(RevokedTokenRepository revokedTokenRepository,
+                               @Value("${security.session-token.enabled:false}") boolean enabled,
+                               @Value("${security.session-token.ttl-seconds:900}") long ttlSeconds,
+                               @Value("${security.session-token.secret:}") String secret) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.enabled = enabled;
+        this.ttlMillis = ttlSeconds * 1000;
+
+        byte[] key;
+        if (secret == null || secret.isBlank()) {
+            // Tokens signed with a random key are only valid on this node until it restarts
+            key = new byte[MIN_SECRET_BYTES];
+            new SecureRandom().nextBytes(key);
+            if (enabled) {
+                logger.warn("security.session-token.secret is not set, using a random per-node signing key: "
+                        + "tokens are rejected by other nodes and invalidated by a restart");
+            }
+        } else {
+            try {
+                key = Base64.getDecoder().decode(secret.trim());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException("security.session-token.secret is not valid base64", e);
+            }
+            if (key.length < MIN_SECRET_BYTES) {
+                throw new IllegalStateException("security.session-token.secret must decode to at least "
+                        + MIN_SECRET_BYTES + " bytes, got " + key.length);
+            }
+        }
+        this.signingKey = new SecretKeySpec(key, SIGNATURE_ALGORITHM);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Issues a new signed token for the given user.
+     *
+     * @return The encoded token, without the "Bearer " prefix.
+     */
+    public String issue(String userId, String username, String role) {
+        long now = System.currentTimeMillis();
+        SessionToken token = new SessionToken(UUID.randomUUID().toString(), userId, username, role, now, now + ttlMillis);
+        return encode(token);
+    }
+
+    /**
+     * Verifies the signature, expiry and revocation status of a token.
+     *
+     * @param encoded The encoded token, without the "Bearer " prefix.
+     * @return The decoded token, or empty if it is malformed, forged, expired or revoked.
+     */
+    public Optional<SessionToken> verify(String encoded) {
+        if (encoded == null) return Optional.empty();
+
+        int dot = encoded.indexOf('.');
+        if (dot <= 0 || dot == encoded.length() - 1) return Optional.empty();
+
+        String payloadPart = encoded.substring(0, dot);
+        byte[] signature;
+        String payload;
+        try {
+            signature = Base64.getUrlDecoder().decode(encoded.substring(dot + 1));
+            payload = new String(Base64.getUrlDecoder().decode(payloadPart), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        if (!MessageDigest.isEqual(signature, sign(payloadPart))) return Optional.empty();
+
+        // version|tokenId|userId|role|issuedAt|expiresAt|username
+        String[] fields = payload.split("\\|", 7);
+        if (fields.length != 7 || !VERSION.equals(fields[0])) return Optional.empty();
+
+        SessionToken token;
+        try {
+            token = new SessionToken(fields[1], fields[2], fields[6], fields[3],
+                    Long.parseLong(fields[4]), Long.parseLong(fields[5]));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+
+        if (token.expiresAt() < System.currentTimeMillis() || isRevoked(token)) return Optional.empty();
+        return Optional.of(token);
+    }
+
+    /**
+     * Exchanges a valid token for a fresh one and revokes the old token.
+     *
+     * @return The new encoded token, or empty if the presented token is no longer valid.
+     */
+    public Optional<String> refresh(String encoded) {
+        return verify(encoded).map(token -> {
+            revoke(token);
+            return issue(token.userId(), token.username(), token.role());
+        });
+    }
+
+    /**
+     * Revokes a single token on every node.
+     */
+    public void revoke(SessionToken token) {
+        saveRevocation(token.tokenId(), new Date(token.expiresAt()));
+    }
+
+    /**
+     * Revokes every token issued to a user up to now, e.g. after the user was updated or deleted.
+     */
+    public void revokeAllForUser(String userId) {
+        if (userId == null) return;
+        saveRevocation(USER_REVOCATION_PREFIX + userId, new Date(System.currentTimeMillis() + ttlMillis));
+    }
+
+    /**
+     * Pulls revocations written by other nodes and drops expired ones.
+     */
+    @Scheduled(fixedDelayString = "${security.session-token.revocation-sync-ms:10000}")
+    @Transactional
+    public void syncRevocations() {
+        if (!enabled) return;
+
+        Date now = new Date();
+        Date since = new Date(lastSync.getTime() - SYNC_OVERLAP_MILLIS);
+        for (RevokedToken revocation : revokedTokenRepository.findByRevokedAtAfter(since)) {
+            revocations.merge(revocation.getId(), revocation,
+                    (current, incoming) -> incoming.getRevokedAt().after(current.getRevokedAt()) ? incoming : current);
+        }
+        lastSync = now;
+
+        revocations.values().removeIf(revocation -> revocation.getExpiresAt().before(now));
+        revokedTokenRepository.deleteByExpiresAtBefore(now);
+    }
+
+    /**
+     * Extracts the token from an "Authorization: Bearer ..." header value.
+     *
+     * @return The encoded token, or null if the header does not carry a bearer token.
+     */
+    public static String resolveBearer(String authHeader) {
+        if (authHeader == null || !authHeader.startsWith(BEARER_PREFIX)) return null;
+        return authHeader.substring(BEARER_PREFIX.length()).trim();
+    }
+
+    private boolean isRevoked(SessionToken token) {
+        if (revocations.containsKey(token.tokenId())) return true;
+        RevokedToken userRevocation = revocations.get(USER_REVOCATION_PREFIX + token.userId());
+        return userRevocation != null && token.issuedAt() <= userRevocation.getRevokedAt().getTime();
+    }
+
+    private void saveRevocation(String id, Date expiresAt) {
+        if (!enabled) return;
+        RevokedToken revocation = new RevokedToken(id, new Date(), expiresAt);
+        revocations.put(id, revocation);
+        revokedTokenRepository.save(revocation);
+    }
+
+    private String encode(SessionToken token) {
+        String payload = String.join("|", VERSION, token.tokenId(), token.userId(), token.role(),
+                Long.toString(token.issuedAt()), Long.toString(token.expiresAt()), token.username());
+        String payloadPart = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        return payloadPart + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(sign(payloadPart));
+    }
+
+    private byte[] sign(String payloadPart) {
+        try {
+            Mac mac = Mac.getInstance(SIGNATURE_ALGORITHM);
+            mac.init(signingKey);
+            return mac.doFinal(payloadPart.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to sign session token", e);
+        }
+    }
+
+    /**
+     * Decoded contents of a session token. Timestamps are epoch milliseconds.
+     * Used directly as the authenticated principal of token-authenticated requests.
+     */
+    public record SessionToken(String tokenId, String userId, String username, String role,
+                               long issuedAt, long expiresAt) implements AuthenticatedPrincipal {
+        @Override
+        public String getName() {
+            return username;
+        }
+    }
+}
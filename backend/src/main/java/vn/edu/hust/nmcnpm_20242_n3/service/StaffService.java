@@ -21,11 +21,16 @@ public class StaffService {
 
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
+    private final CredentialCacheService credentialCacheService;
+    private final SessionTokenService sessionTokenService;
 
     @Autowired
-    public StaffService(UserRepository userRepository, RoleRepository roleRepository) {
+    public StaffService(UserRepository userRepository, RoleRepository roleRepository,
+                        CredentialCacheService credentialCacheService, SessionTokenService sessionTokenService) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
+        this.credentialCacheService = credentialCacheService;
+        this.sessionTokenService = sessionTokenService;
     }
 
     // Convert staff to UserDTO
@@ -136,6 +141,8 @@ public class StaffService {
 //        if (existingUser.getRole() == null || (!RoleEnum.STAFF.equals(existingUser.getRole().getName()) && !RoleEnum.ADMIN.equals(existingUser.getRole().getName()))) {
 //            throw new IllegalArgumentException("User is not a staff or admin");
 //        }
+        String oldUsername = existingUser.getUsername();
+        sessionTokenService.revokeAllForUser(existingUser.getId());
 
         if (userDTO.getName() != null && !userDTO.getName().trim().isEmpty()) {
             existingUser.setName(userDTO.getName());
@@ -181,6 +188,7 @@ public class StaffService {
         }
 
         User updatedUser = userRepository.save(existingUser);
+        credentialCacheService.invalidateAfterCommit(oldUsername, updatedUser.getUsername());
         return convertToDTO(updatedUser);
     }
 
@@ -192,6 +200,8 @@ public class StaffService {
         if (user.getRole() == null || (!RoleEnum.STAFF.equals(user.getRole().getName()) && !RoleEnum.ADMIN.equals(user.getRole().getName()))) {
             throw new IllegalArgumentException("User is not a staff or admin");
         }
+        sessionTokenService.revokeAllForUser(user.getId());
         userRepository.delete(user);
+        credentialCacheService.invalidateAfterCommit(user.getUsername());
     }
 }
\ No newline at end of file
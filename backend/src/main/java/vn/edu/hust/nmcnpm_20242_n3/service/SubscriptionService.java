@@ -12,6 +12,8 @@ import vn.edu.hust.nmcnpm_20242_n3.repository.SubscriptionRepository;
 import vn.edu.hust.nmcnpm_20242_n3.repository.UserRepository;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class SubscriptionService {
@@ -67,6 +69,19 @@ public class SubscriptionService {
         }
     }
 
+    /**
+     * Batch form of {@link #cancelSubscriptionAfterBorrowing(int, String)}: one query for the
+     * active subscriptions of all given copies, one batched update for those of their borrowers.
+     */
+    public void cancelSubscriptionsAfterBorrowing(Map<Integer, Set<String>> borrowersByCopyId) {
+        List<Subscription> subscriptions = subscriptionRepository.findAllByBookCopyIdInAndActive(borrowersByCopyId.keySet(), true)
+                .stream()
+                .filter(s -> borrowersByCopyId.get(s.getBookCopy().getId()).contains(s.getUser().getId()))
+                .toList();
+        subscriptions.forEach(s -> s.setActive(false));
+        subscriptionRepository.saveAll(subscriptions);
+    }
+
     public void notifyAllUsers() {
         // Lấy tất cả các đăng ký đang hoạt động
         List<Subscription> subscriptions = subscriptionRepository.findAllByActive(true);
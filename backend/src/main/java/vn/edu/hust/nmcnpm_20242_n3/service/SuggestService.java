@@ -0,0 +1,141 @@
+package vn.edu.hust.nmcnpm_20242_n3.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import vn.edu.hust.nmcnpm_20242_n3.repository.AuthorRepository;
+import vn.edu.hust.nmcnpm_20242_n3.repository.BookLoanRepository;
+import vn.edu.hust.nmcnpm_20242_n3.repository.BookRepository;
+import vn.edu.hust.nmcnpm_20242_n3.repository.PublisherRepository;
+import vn.edu.hust.nmcnpm_20242_n3.service.SuggestionIndex.Suggestion;
+import vn.edu.hust.nmcnpm_20242_n3.service.SuggestionIndex.Type;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the {@link SuggestionIndex} in sync with the catalog.
+ * Entries are weighted by popularity: a title by its number of loans, an author or publisher by
+ * the loans of all their books, each plus one so that never borrowed entries still rank. Weights
+ * are recomputed by the full rebuild at startup and every night; catalog writes in between
+ * update the index after commit and keep the current weight. Writes committed while a rebuild
+ * reads the database are replayed over its result.
+ */
+@Service
+public class SuggestService {
+    private static final Logger logger = LoggerFactory.getLogger(SuggestService.class);
+
+    private final BookRepository bookRepository;
+    private final AuthorRepository authorRepository;
+    private final PublisherRepository publisherRepository;
+    private final BookLoanRepository bookLoanRepository;
+    private final SuggestionIndex index = new SuggestionIndex();
+    private final boolean enabled;
+    private final int batchSize;
+    private final int compactThreshold;
+
+    public SuggestService(BookRepository bookRepository, AuthorRepository authorRepository,
+                          PublisherRepository publisherRepository, BookLoanRepository bookLoanRepository,
+                          @Value("${suggest.enabled:true}") boolean enabled,
+                          @Value("${search.index.batch-size:1000}") int batchSize,
+                          @Value("${suggest.compact-threshold:1000}") int compactThreshold) {
+        this.bookRepository = bookRepository;
+        this.authorRepository = authorRepository;
+        this.publisherRepository = publisherRepository;
+        this.bookLoanRepository = bookLoanRepository;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.compactThreshold = compactThreshold;
+    }
+
+    /**
+     * @return At most {@code limit} titles, authors and publishers with a word starting with the prefix,
+     * most popular first.
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        if (!enabled || prefix == null) return List.of();
+        return index.suggest(prefix, limit);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${suggest.rebuild-cron:0 30 4 * * ?}") // Refresh the weights every night
+    public synchronized void rebuild() {
+        if (!enabled) return;
+
+        long start = System.nanoTime();
+        // Writes committed from now on may or may not be in what is read below; they are replayed after the load
+        index.startLoad();
+        try {
+            load(start);
+        } finally {
+            index.cancelLoad();
+        }
+    }
+
+    private void load(long start) {
+        Map<Integer, Long> loans = new HashMap<>();
+        for (Object[] row : bookLoanRepository.countLoansPerBook()) {
+            loans.put((Integer) row[0], (Long) row[1]);
+        }
+
+        List<Suggestion> suggestions = new ArrayList<>();
+        Map<Integer, Long> authorLoans = new HashMap<>();
+        Map<Integer, Long> publisherLoans = new HashMap<>();
+        int afterId = Integer.MIN_VALUE;
+        List<Object[]> rows;
+        do {
+            rows = bookRepository.findIndexRowsAfter(afterId, PageRequest.ofSize(batchSize));
+            if (rows.isEmpty()) break;
+
+            List<Integer> ids = rows.stream().map(row -> (Integer) row[0]).toList();
+            for (Object[] row : rows) {
+                int bookId = (Integer) row[0];
+                long bookLoans = loans.getOrDefault(bookId, 0L);
+                suggestions.add(new Suggestion(Type.TITLE, bookId, (String) row[1], 1 + bookLoans));
+                if (row[2] != null) publisherLoans.merge((Integer) row[2], bookLoans, Long::sum);
+            }
+            for (Object[] row : bookRepository.findAuthorNamesByBookIds(ids)) {
+                authorLoans.merge((Integer) row[1], loans.getOrDefault((Integer) row[0], 0L), Long::sum);
+            }
+            afterId = ids.get(ids.size() - 1);
+        } while (rows.size() == batchSize);
+
+        authorRepository.findAll().forEach(author -> suggestions.add(new Suggestion(Type.AUTHOR, author.getId(),
+                author.getName(), 1 + authorLoans.getOrDefault(author.getId(), 0L))));
+        publisherRepository.findAll().forEach(publisher -> suggestions.add(new Suggestion(Type.PUBLISHER, publisher.getId(),
+                publisher.getName(), 1 + publisherLoans.getOrDefault(publisher.getId(), 0L))));
+
+        index.load(suggestions);
+        logger.info("Suggestion index built: {} entries in {} ms", suggestions.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Folds recent writes into a new snapshot once enough of them have piled up.
+     */
+    @Scheduled(fixedDelayString = "${suggest.compact-interval-ms:10000}")
+    public void compactIfNeeded() {
+        if (enabled && index.staleEntries() >= compactThreshold) {
+            index.compact();
+        }
+    }
+
+    /**
+     * Adds or renames an entry once the surrounding transaction, if any, has committed.
+     */
+    public void put(Type type, int id, String text) {
+        if (!enabled) return;
+        AfterCommit.run(() -> index.put(new Suggestion(type, id, text, Math.max(1, index.weight(type, id)))));
+    }
+
+    public void remove(Type type, int id) {
+        if (!enabled) return;
+        AfterCommit.run(() -> index.remove(type, id));
+    }
+}
@@ -0,0 +1,461 @@
+package vn.edu.hust.nmcnpm_20242_n3.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * In-memory typeahead over book titles, author names and publisher names.
+ * <p>
+ * Every entry is reachable from the start of its normalized text and from the start of each of
+ * its first {@value #MAX_WORD_STARTS} words, so "nhat anh" finds "Nguyễn Nhật Ánh". The bulk of
+ * the entries sits in an immutable snapshot: a sorted array of (entry, offset) suffix keys over
+ * the shared normalized texts, plus a max-weight segment tree over that array. A prefix maps to
+ * one contiguous key range by binary search, and the k heaviest entries of the range are pulled
+ * out of the segment tree in O(k log n), however many entries share the prefix.
+ * <p>
+ * Writes go to a small sorted delta and to the map of live entries; a snapshot or delta entry
+ * only counts while it is still the live entry for its (type, id). {@link #compact()} folds the
+ * delta into a new snapshot without blocking readers for the duration of the build.
+ * <p>
+ * A full reload reads its data while writes keep coming in: {@link #startLoad()} records the
+ * writes from then on, and {@link #load(Collection)} replays them over the loaded content.
+ */
+public class SuggestionIndex {
+
+    public enum Type { TITLE, AUTHOR, PUBLISHER }
+
+    public record Suggestion(Type type, int id, String text, long weight) {
+    }
+
+    static final int MAX_WORD_STARTS = 8;
+    private static final int MAX_OFFSET = 0xFFFF;
+    private static final Comparator<Suggestion> BY_WEIGHT = Comparator.comparingLong(Suggestion::weight).reversed()
+            .thenComparing(Suggestion::text).thenComparingInt(Suggestion::id);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Suggestion> live = new HashMap<>();
+    private final TreeMap<String, Suggestion> delta = new TreeMap<>();
+    private Snapshot snapshot = Snapshot.EMPTY;
+    // Live entries that are not in the snapshot, or snapshot entries that were replaced
+    private int staleEntries;
+    // Writes since startLoad(), in order, or null when no load is in progress
+    private List<Write> journal;
+
+    // A put, or a removal when suggestion is null
+    private record Write(long key, Suggestion suggestion) {
+    }
+
+    /**
+     * Starts recording writes, so that a {@link #load(Collection)} of data read after this call
+     * does not lose the writes made while it was being read.
+     */
+    public void startLoad() {
+        lock.writeLock().lock();
+        try {
+            if (journal == null) journal = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Stops recording writes without loading, e.g. after reading the data failed.
+     */
+    public void cancelLoad() {
+        lock.writeLock().lock();
+        try {
+            journal = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the whole content and rebuilds the snapshot, then replays the writes recorded
+     * since {@link #startLoad()}. A replayed entry keeps the loaded weight if there is one.
+     */
+    public void load(Collection<Suggestion> suggestions) {
+        Snapshot built = Snapshot.build(new ArrayList<>(suggestions));
+        lock.writeLock().lock();
+        try {
+            live.clear();
+            delta.clear();
+            for (Suggestion suggestion : suggestions) {
+                live.put(key(suggestion.type(), suggestion.id()), suggestion);
+            }
+            snapshot = built;
+            staleEntries = 0;
+
+            if (journal != null) {
+                for (Write write : journal) {
+                    if (write.suggestion() == null) {
+                        removeUnlocked(write.key());
+                        continue;
+                    }
+                    Suggestion loaded = live.get(write.key());
+                    Suggestion suggestion = write.suggestion();
+                    putUnlocked(loaded == null ? suggestion
+                            : new Suggestion(suggestion.type(), suggestion.id(), suggestion.text(), loaded.weight()));
+                }
+                journal = null;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds or replaces the entry of (type, id).
+     */
+    public void put(Suggestion suggestion) {
+        lock.writeLock().lock();
+        try {
+            putUnlocked(suggestion);
+            if (journal != null) journal.add(new Write(key(suggestion.type(), suggestion.id()), suggestion));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Type type, int id) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(key(type, id));
+            if (journal != null) journal.add(new Write(key(type, id), null));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void putUnlocked(Suggestion suggestion) {
+        String normalized = normalize(suggestion.text());
+        live.put(key(suggestion.type(), suggestion.id()), suggestion);
+        for (int offset : wordStarts(normalized)) {
+            delta.put(deltaKey(normalized.substring(offset), suggestion), suggestion);
+        }
+        staleEntries++;
+    }
+
+    private void removeUnlocked(long key) {
+        if (live.remove(key) != null) staleEntries++;
+    }
+
+    /**
+     * @return The weight of the live entry of (type, id), or 0 if there is none.
+     */
+    public long weight(Type type, int id) {
+        lock.readLock().lock();
+        try {
+            Suggestion suggestion = live.get(key(type, id));
+            return suggestion == null ? 0 : suggestion.weight();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return live.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return The number of writes since the last snapshot build.
+     */
+    public int staleEntries() {
+        lock.readLock().lock();
+        try {
+            return staleEntries;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return At most {@code limit} live entries with a word starting with the prefix, heaviest first.
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String normalized = normalize(prefix);
+        if (normalized.isEmpty() || limit <= 0) return List.of();
+        // Keep a trailing space so "harry " only matches the whole word
+        if (Character.isWhitespace(prefix.charAt(prefix.length() - 1))) normalized += " ";
+
+        lock.readLock().lock();
+        try {
+            Set<Long> seen = new HashSet<>();
+            List<Suggestion> results = new ArrayList<>();
+            for (Suggestion suggestion : delta.subMap(normalized, true, normalized + Character.MAX_VALUE, false).values()) {
+                if (isLive(suggestion) && seen.add(key(suggestion.type(), suggestion.id()))) {
+                    results.add(suggestion);
+                }
+            }
+            snapshot.top(normalized, limit, suggestion -> isLive(suggestion)
+                    && seen.add(key(suggestion.type(), suggestion.id())), results);
+
+            results.sort(BY_WEIGHT);
+            return results.size() > limit ? new ArrayList<>(results.subList(0, limit)) : results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Builds a new snapshot from the live entries and drops the delta entries it covers.
+     * The build runs without holding the lock; writes made meanwhile stay in the delta.
+     */
+    public void compact() {
+        List<Suggestion> entries;
+        int staleBefore;
+        lock.readLock().lock();
+        try {
+            entries = new ArrayList<>(live.values());
+            staleBefore = staleEntries;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Snapshot built = Snapshot.build(entries);
+        Set<Suggestion> included = Collections.newSetFromMap(new IdentityHashMap<>());
+        included.addAll(entries);
+
+        lock.writeLock().lock();
+        try {
+            snapshot = built;
+            delta.values().removeIf(suggestion -> included.contains(suggestion) || !isLive(suggestion));
+            staleEntries -= staleBefore;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean isLive(Suggestion suggestion) {
+        return live.get(key(suggestion.type(), suggestion.id())) == suggestion;
+    }
+
+    private static long key(Type type, int id) {
+        return ((long) type.ordinal() << 32) | (id & 0xFFFFFFFFL);
+    }
+
+    private static String deltaKey(String suffix, Suggestion suggestion) {
+        return suffix + '\u0000' + suggestion.type().ordinal() + ':' + suggestion.id();
+    }
+
+    static String normalize(String text) {
+        return String.join(" ", BookSearchIndex.tokenize(text));
+    }
+
+    private static int[] wordStarts(String normalized) {
+        int[] starts = new int[MAX_WORD_STARTS];
+        int count = 0;
+        for (int i = 0; i < normalized.length() && i <= MAX_OFFSET && count < MAX_WORD_STARTS; i++) {
+            if (i == 0 || normalized.charAt(i - 1) == ' ') starts[count++] = i;
+        }
+        return Arrays.copyOf(starts, count);
+    }
+
+    /**
+     * Immutable sorted suffix keys with a segment tree of the heaviest key per node.
+     */
+    private static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(new Suggestion[0], new String[0], new long[0]);
+
+        private final Suggestion[] entries;
+        private final String[] texts;
+        // entry index << 16 | offset of the word start in the normalized text, in suffix order
+        private final long[] keys;
+        private final int[] tree;
+        private final int leaves;
+
+        private Snapshot(Suggestion[] entries, String[] texts, long[] keys) {
+            this.entries = entries;
+            this.texts = texts;
+            this.keys = keys;
+            int size = 1;
+            while (size < keys.length) size <<= 1;
+            this.leaves = size;
+            this.tree = new int[2 * size];
+            Arrays.fill(tree, -1);
+            for (int i = 0; i < keys.length; i++) tree[size + i] = i;
+            for (int node = size - 1; node >= 1; node--) {
+                tree[node] = heavier(tree[2 * node], tree[2 * node + 1]);
+            }
+        }
+
+        static Snapshot build(List<Suggestion> suggestions) {
+            Suggestion[] entries = suggestions.toArray(new Suggestion[0]);
+            String[] texts = new String[entries.length];
+            long[] keys = new long[entries.length * 2];
+            int count = 0;
+            for (int i = 0; i < entries.length; i++) {
+                texts[i] = normalize(entries[i].text());
+                for (int offset : wordStarts(texts[i])) {
+                    if (count == keys.length) keys = Arrays.copyOf(keys, keys.length * 2);
+                    keys[count++] = ((long) i << 16) | offset;
+                }
+            }
+            keys = Arrays.copyOf(keys, count);
+            // The first four characters of each suffix, packed so most comparisons need no string access
+            long[] heads = new long[count];
+            for (int i = 0; i < count; i++) heads[i] = head(texts, keys[i]);
+            sort(texts, keys, heads, 0, count - 1);
+            return new Snapshot(entries, texts, keys);
+        }
+
+        private static long head(String[] texts, long key) {
+            String text = texts[(int) (key >>> 16)];
+            int offset = (int) (key & MAX_OFFSET);
+            long head = 0;
+            for (int i = 0; i < 4; i++) {
+                head = (head << 16) | (offset + i < text.length() ? text.charAt(offset + i) : 0);
+            }
+            return head;
+        }
+
+        // Quicksort on the primitive arrays; boxing millions of keys for Arrays.sort is several times slower
+        private static void sort(String[] texts, long[] keys, long[] heads, int low, int high) {
+            while (high - low > 16) {
+                int middle = (low + high) >>> 1;
+                long pivotKey = keys[middle];
+                long pivotHead = heads[middle];
+                int i = low;
+                int j = high;
+                while (i <= j) {
+                    while (compare(texts, keys[i], heads[i], pivotKey, pivotHead) < 0) i++;
+                    while (compare(texts, keys[j], heads[j], pivotKey, pivotHead) > 0) j--;
+                    if (i <= j) swap(keys, heads, i++, j--);
+                }
+                // Recurse into the smaller half to bound the stack depth
+                if (j - low < high - i) {
+                    sort(texts, keys, heads, low, j);
+                    low = i;
+                } else {
+                    sort(texts, keys, heads, i, high);
+                    high = j;
+                }
+            }
+            for (int i = low + 1; i <= high; i++) {
+                for (int j = i; j > low && compare(texts, keys[j], heads[j], keys[j - 1], heads[j - 1]) < 0; j--) {
+                    swap(keys, heads, j, j - 1);
+                }
+            }
+        }
+
+        private static int compare(String[] texts, long keyA, long headA, long keyB, long headB) {
+            int cmp = Long.compareUnsigned(headA, headB);
+            return cmp != 0 ? cmp : compareSuffixes(texts, keyA, keyB);
+        }
+
+        private static void swap(long[] keys, long[] heads, int i, int j) {
+            long key = keys[i];
+            keys[i] = keys[j];
+            keys[j] = key;
+            long head = heads[i];
+            heads[i] = heads[j];
+            heads[j] = head;
+        }
+
+        /**
+         * Adds up to {@code limit} accepted entries of the prefix range to {@code results}, heaviest first.
+         */
+        void top(String prefix, int limit, Predicate<Suggestion> accept, List<Suggestion> results) {
+            int from = bound(prefix, false);
+            int to = bound(prefix, true);
+            if (from >= to) return;
+
+            // Ranges ordered by the weight of their heaviest key
+            PriorityQueue<int[]> ranges = new PriorityQueue<>((a, b) -> Long.compare(weight(b[2]), weight(a[2])));
+            ranges.add(new int[]{from, to, argmax(from, to)});
+            int accepted = 0;
+            while (!ranges.isEmpty() && accepted < limit) {
+                int[] range = ranges.poll();
+                int best = range[2];
+                if (accept.test(entry(best))) {
+                    results.add(entry(best));
+                    accepted++;
+                }
+                if (range[0] < best) ranges.add(new int[]{range[0], best, argmax(range[0], best)});
+                if (best + 1 < range[1]) ranges.add(new int[]{best + 1, range[1], argmax(best + 1, range[1])});
+            }
+        }
+
+        private Suggestion entry(int keyIndex) {
+            return entries[(int) (keys[keyIndex] >>> 16)];
+        }
+
+        private long weight(int keyIndex) {
+            return entry(keyIndex).weight();
+        }
+
+        private int heavier(int a, int b) {
+            if (a < 0) return b;
+            if (b < 0) return a;
+            return weight(b) > weight(a) ? b : a;
+        }
+
+        // Heaviest key in [from, to)
+        private int argmax(int from, int to) {
+            int best = -1;
+            for (int l = from + leaves, r = to + leaves; l < r; l >>= 1, r >>= 1) {
+                if ((l & 1) == 1) best = heavier(best, tree[l++]);
+                if ((r & 1) == 1) best = heavier(best, tree[--r]);
+            }
+            return best;
+        }
+
+        // First key whose suffix, cut to the prefix length, is >= (or > when upper) the prefix
+        private int bound(String prefix, boolean upper) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                int cmp = comparePrefix(keys[mid], prefix);
+                if (cmp < 0 || (upper && cmp == 0)) low = mid + 1;
+                else high = mid;
+            }
+            return low;
+        }
+
+        private int comparePrefix(long key, String prefix) {
+            String text = texts[(int) (key >>> 16)];
+            int offset = (int) (key & MAX_OFFSET);
+            int length = Math.min(text.length() - offset, prefix.length());
+            for (int i = 0; i < length; i++) {
+                int cmp = Character.compare(text.charAt(offset + i), prefix.charAt(i));
+                if (cmp != 0) return cmp;
+            }
+            return length == prefix.length() ? 0 : -1;
+        }
+
+        private static int compareSuffixes(String[] texts, long a, long b) {
+            String textA = texts[(int) (a >>> 16)];
+            String textB = texts[(int) (b >>> 16)];
+            int offsetA = (int) (a & MAX_OFFSET);
+            int offsetB = (int) (b & MAX_OFFSET);
+            int lengthA = textA.length() - offsetA;
+            int lengthB = textB.length() - offsetB;
+            int length = Math.min(lengthA, lengthB);
+            for (int i = 0; i < length; i++) {
+                int cmp = Character.compare(textA.charAt(offsetA + i), textB.charAt(offsetB + i));
+                if (cmp != 0) return cmp;
+            }
+            return Integer.compare(lengthA, lengthB);
+        }
+    }
+}
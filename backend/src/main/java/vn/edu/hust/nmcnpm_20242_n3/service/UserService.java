@@ -4,6 +4,8 @@ import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -18,7 +20,7 @@ import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
-public class UserService implements UserDetailsService {
+public class UserService implements UserDetailsService, UserDetailsPasswordService {
 
     @Autowired
     private UserRepository userRepository;
@@ -30,6 +32,12 @@ public class UserService implements UserDetailsService {
     @Lazy
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private CredentialCacheService credentialCacheService;
+
+    @Autowired
+    private SessionTokenService sessionTokenService;
+
     public UserDTO createUser(UserDTO dto) throws IllegalArgumentException {
         if (userRepository.existsByEmail(dto.getEmail())) {
             throw new IllegalArgumentException("Email already exists");
@@ -90,6 +98,8 @@ public class UserService implements UserDetailsService {
         if (!user.getUsername().equals(dto.getUserName()) && userRepository.existsByUserName(dto.getUserName())) {
             throw new IllegalArgumentException("Username already exists");
         }
+        String oldUsername = user.getUsername();
+        sessionTokenService.revokeAllForUser(user.getId());
         user.setName(dto.getName());
         user.setUserName(dto.getUserName());
         user.setEmail(dto.getEmail());
@@ -100,6 +110,7 @@ public class UserService implements UserDetailsService {
         user.setRole(role);
 
         User updated = userRepository.save(user);
+        credentialCacheService.invalidateAfterCommit(oldUsername, updated.getUsername());
         return mapToDTO(updated);
     }
 
@@ -121,7 +132,9 @@ public class UserService implements UserDetailsService {
         user.getSubscriptions().clear();
 
         // 5. Delete the user
+        sessionTokenService.revokeAllForUser(user.getId());
         userRepository.delete(user);
+        credentialCacheService.invalidateAfterCommit(user.getUsername());
     }
 
     public List<UserDTO> searchUsers(String id, String email, String username) {
@@ -137,6 +150,20 @@ public class UserService implements UserDetailsService {
                 .orElseThrow(() -> new EntityNotFoundException("User not found: " + username));
     }
 
+    /**
+     * Stores a re-hashed password after a successful login with an outdated hash.
+     * The raw password is unchanged, so cached credentials and session tokens stay valid.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.updatePasswordByUserName(user.getUsername(), newPassword);
+        if (user instanceof User entity) {
+            entity.setPassword(newPassword);
+        }
+        return user;
+    }
+
     public UserDTO createUser(String name, String username, String password, String email) {
         UserDTO dto = new UserDTO();
         dto.setName(name);
@@ -51,6 +51,11 @@ INSERT INTO book_copies (id, original_book_book_id, status) VALUES
 
 SELECT setval('book_copies_seq', (SELECT MAX(id) FROM book_copies));
 
+-- Copy counters on books (kept up to date by the application afterwards)
+UPDATE books b SET
+    total_copies = (SELECT COUNT(*) FROM book_copies c WHERE c.original_book_book_id = b.book_id),
+    available_copies = (SELECT COUNT(*) FROM book_copies c WHERE c.original_book_book_id = b.book_id AND c.status = 'AVAILABLE');
+
 -- Insert Books-Authors relationships
 INSERT INTO books_authors (book_id, author_id) VALUES
     (1, 1), -- 1984 by George Orwell
@@ -0,0 +1,30 @@
+-- Full-text search support for the books table.
+-- Runs after Hibernate has created the schema and before the seed data is inserted.
+
+CREATE EXTENSION IF NOT EXISTS unaccent;
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- unaccent() is only STABLE, wrap it so it can be used in generated columns and indexes
+CREATE OR REPLACE FUNCTION f_unaccent(text) RETURNS text
+    LANGUAGE sql IMMUTABLE PARALLEL SAFE STRICT
+    AS $$ SELECT public.unaccent('public.unaccent', $1) $$;
+
+-- Title weighs more than description; 'simple' because there is no Vietnamese stemmer
+ALTER TABLE books ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('simple', f_unaccent(coalesce(title, ''))), 'A') ||
+        setweight(to_tsvector('simple', f_unaccent(coalesce(description, ''))), 'B')
+    ) STORED;
+
+CREATE INDEX IF NOT EXISTS books_search_vector_idx ON books USING gin (search_vector);
+
+-- Substring and similarity matching on titles, accent-insensitive
+CREATE INDEX IF NOT EXISTS books_title_trgm_idx ON books USING gin (f_unaccent(lower(title)) gin_trgm_ops);
+
+-- Filter lookups from the join tables
+CREATE INDEX IF NOT EXISTS books_authors_author_idx ON books_authors (author_id, book_id);
+CREATE INDEX IF NOT EXISTS books_categories_category_idx ON books_categories (category_id, book_id);
+CREATE INDEX IF NOT EXISTS books_publisher_idx ON books (publisher_id);
+
+-- Staff queue: requests that are no longer pending, in creation order
+CREATE INDEX IF NOT EXISTS book_requests_settled_created_at_idx ON book_requests (created_at, id) WHERE status <> 'PENDING';
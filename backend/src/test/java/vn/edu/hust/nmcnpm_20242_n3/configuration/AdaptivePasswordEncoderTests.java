@@ -0,0 +1,58 @@
+package vn.edu.hust.nmcnpm_20242_n3.configuration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptivePasswordEncoderTests {
+
+    private final AdaptivePasswordEncoder encoder = new AdaptivePasswordEncoder(6);
+
+    @Test
+    void encodesWithPrefixAndCost() {
+        String encoded = encoder.encode("secret");
+
+        assertTrue(encoded.startsWith("{bcrypt}$2a$06$"), encoded);
+        assertTrue(encoder.matches("secret", encoded));
+        assertFalse(encoder.matches("wrong", encoded));
+    }
+
+    @Test
+    void acceptsHashesWithoutPrefix() {
+        String legacy = new BCryptPasswordEncoder(4).encode("secret");
+
+        assertTrue(encoder.matches("secret", legacy));
+        assertTrue(encoder.upgradeEncoding(legacy));
+    }
+
+    @Test
+    void upgradesOnlyWeakerHashes() {
+        assertTrue(encoder.upgradeEncoding(new AdaptivePasswordEncoder(5).encode("secret")));
+        assertFalse(encoder.upgradeEncoding(encoder.encode("secret")));
+        // Written by a node that calibrated higher, and kept as is
+        assertFalse(encoder.upgradeEncoding(new AdaptivePasswordEncoder(7).encode("secret")));
+        assertTrue(encoder.upgradeEncoding("{bcrypt}not-a-bcrypt-hash"));
+        assertFalse(encoder.upgradeEncoding(null));
+        assertFalse(encoder.upgradeEncoding(""));
+    }
+
+    @Test
+    void rejectsCostsOutsideBCryptBounds() {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptivePasswordEncoder(3));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptivePasswordEncoder(32));
+    }
+
+    @Test
+    void calibrationStaysWithinBounds() {
+        assertEquals(8, AdaptivePasswordEncoder.calibrateCost(1, 8, 8));
+        // Clamped to BCrypt's own bounds
+        assertEquals(4, AdaptivePasswordEncoder.calibrateCost(1, 1, 4));
+        // Below any measurable hash time the floor is kept, with an hour to spare the ceiling is reached
+        assertEquals(4, AdaptivePasswordEncoder.calibrateCost(0, 4, 10));
+        assertEquals(7, AdaptivePasswordEncoder.calibrateCost(3_600_000, 4, 7));
+
+        int cost = AdaptivePasswordEncoder.calibrated(50, 4, 12).getCost();
+        assertTrue(cost >= 4 && cost <= 12, "cost " + cost);
+    }
+}
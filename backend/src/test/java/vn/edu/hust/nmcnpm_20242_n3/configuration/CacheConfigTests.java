@@ -0,0 +1,50 @@
+package vn.edu.hust.nmcnpm_20242_n3.configuration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class CacheConfigTests {
+
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void evictionInsideATransactionWaitsForCommit() {
+        Cache cache = cacheManager.getCache(CacheConfig.AUTHOR);
+        String key = "evict-on-commit-" + System.nanoTime();
+        cache.put(key, "old");
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            cache.evict(key);
+            // A reader during the write still sees the entry, and cannot re-cache a stale row after it
+            assertNotNull(cache.get(key));
+        });
+
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    void evictionIsDroppedOnRollback() {
+        Cache cache = cacheManager.getCache(CacheConfig.AUTHOR);
+        String key = "evict-on-rollback-" + System.nanoTime();
+        cache.put(key, "kept");
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            cache.evict(key);
+            status.setRollbackOnly();
+        });
+
+        assertEquals("kept", cache.get(key).get());
+        cache.evict(key);
+    }
+}
@@ -0,0 +1,169 @@
+package vn.edu.hust.nmcnpm_20242_n3.configuration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.authentication.AccountExpiredException;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.CredentialsExpiredException;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.authentication.LockedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import vn.edu.hust.nmcnpm_20242_n3.service.CredentialCacheService;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingAuthenticationProviderTests {
+    private static final Logger logger = LoggerFactory.getLogger(CachingAuthenticationProviderTests.class);
+
+    private final AtomicInteger userLookups = new AtomicInteger();
+    private final AtomicInteger passwordMatches = new AtomicInteger();
+    private CredentialCacheService credentialCacheService;
+    private DaoAuthenticationProvider daoProvider;
+    private CachingAuthenticationProvider cachingProvider;
+
+    @BeforeEach
+    void setUp() {
+        PasswordEncoder bcrypt = new BCryptPasswordEncoder();
+        PasswordEncoder encoder = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return bcrypt.encode(rawPassword);
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                passwordMatches.incrementAndGet();
+                return bcrypt.matches(rawPassword, encodedPassword);
+            }
+        };
+        UserDetails reader = User.withUsername("reader")
+                .password(encoder.encode("secret"))
+                .roles("USER")
+                .build();
+
+        daoProvider = new DaoAuthenticationProvider(encoder);
+        daoProvider.setUserDetailsService(username -> {
+            userLookups.incrementAndGet();
+            return User.withUserDetails(reader).build();
+        });
+        credentialCacheService = new CredentialCacheService(300, 100);
+        cachingProvider = new CachingAuthenticationProvider(daoProvider, credentialCacheService);
+    }
+
+    @Test
+    void repeatedCredentialsSkipLookupAndHash() {
+        cachingProvider.authenticate(token("reader", "secret"));
+        Authentication second = cachingProvider.authenticate(token("reader", "secret"));
+
+        assertTrue(second.isAuthenticated());
+        assertEquals("reader", second.getName());
+        assertEquals(1, userLookups.get());
+    }
+
+    @Test
+    void wrongPasswordIsNeverServedFromCache() {
+        cachingProvider.authenticate(token("reader", "secret"));
+
+        assertThrows(BadCredentialsException.class, () -> cachingProvider.authenticate(token("reader", "wrong")));
+        assertEquals(2, userLookups.get());
+    }
+
+    @Test
+    void invalidationForcesFullVerification() {
+        cachingProvider.authenticate(token("reader", "secret"));
+        credentialCacheService.invalidate("reader");
+        cachingProvider.authenticate(token("reader", "secret"));
+
+        assertEquals(2, userLookups.get());
+    }
+
+    @Test
+    void loginRacingAnInvalidationIsNotCached() {
+        PasswordEncoder encoder = new BCryptPasswordEncoder(4);
+        UserDetails reader = User.withUsername("reader").password(encoder.encode("secret")).roles("USER").build();
+        DaoAuthenticationProvider daoProvider = new DaoAuthenticationProvider(encoder);
+        // The user is changed and the change committed while this login still holds the old row
+        daoProvider.setUserDetailsService(username -> {
+            credentialCacheService.invalidate(username);
+            return User.withUserDetails(reader).build();
+        });
+        CachingAuthenticationProvider racingProvider = new CachingAuthenticationProvider(daoProvider, credentialCacheService);
+
+        assertTrue(racingProvider.authenticate(token("reader", "secret")).isAuthenticated());
+        assertTrue(credentialCacheService.lookup("reader", "secret").isEmpty());
+    }
+
+    @Test
+    void cacheHitDoesNotCallTheDelegateEncoder() {
+        cachingProvider.authenticate(token("reader", "secret"));
+        int matchesAfterMiss = passwordMatches.get();
+        for (int i = 0; i < 100; i++) {
+            cachingProvider.authenticate(token("reader", "secret"));
+        }
+
+        assertEquals(1, matchesAfterMiss);
+        assertEquals(1, passwordMatches.get());
+        assertEquals(1, userLookups.get());
+    }
+
+    @Test
+    void cacheHitAppliesAccountStatusChecks() {
+        credentialCacheService.put("locked", "secret", User.withUsername("locked").password("x").roles("USER")
+                .accountLocked(true).build());
+        credentialCacheService.put("disabled", "secret", User.withUsername("disabled").password("x").roles("USER")
+                .disabled(true).build());
+        credentialCacheService.put("expired", "secret", User.withUsername("expired").password("x").roles("USER")
+                .accountExpired(true).build());
+        credentialCacheService.put("stale", "secret", User.withUsername("stale").password("x").roles("USER")
+                .credentialsExpired(true).build());
+
+        assertThrows(LockedException.class, () -> cachingProvider.authenticate(token("locked", "secret")));
+        assertThrows(DisabledException.class, () -> cachingProvider.authenticate(token("disabled", "secret")));
+        assertThrows(AccountExpiredException.class, () -> cachingProvider.authenticate(token("expired", "secret")));
+        assertThrows(CredentialsExpiredException.class, () -> cachingProvider.authenticate(token("stale", "secret")));
+        // Rejected without reaching the delegate, and dropped from the cache
+        assertEquals(0, userLookups.get());
+        assertEquals(0, passwordMatches.get());
+        assertTrue(credentialCacheService.lookup("locked", "secret").isEmpty());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void benchmarkRequestsPerSecond() {
+        // The first round only warms up the JIT
+        double uncachedRate = 0;
+        double cachedRate = 0;
+        for (int round = 0; round < 2; round++) {
+            uncachedRate = requestsPerSecond(daoProvider, 50);
+            cachedRate = requestsPerSecond(cachingProvider, 50_000);
+        }
+
+        logger.info("Basic auth without cache: {} req/s, with cache: {} req/s",
+                String.format("%.0f", uncachedRate), String.format("%.0f", cachedRate));
+        assertTrue(cachedRate > uncachedRate * 10, "cached " + cachedRate + " req/s, uncached " + uncachedRate + " req/s");
+    }
+
+    private static double requestsPerSecond(AuthenticationProvider provider, int requests) {
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            assertTrue(provider.authenticate(token("reader", "secret")).isAuthenticated());
+        }
+        return requests / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private static UsernamePasswordAuthenticationToken token(String username, String password) {
+        return UsernamePasswordAuthenticationToken.unauthenticated(username, password);
+    }
+}
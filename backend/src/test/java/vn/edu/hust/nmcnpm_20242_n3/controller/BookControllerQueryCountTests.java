@@ -0,0 +1,70 @@
+package vn.edu.hust.nmcnpm_20242_n3.controller;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import vn.edu.hust.nmcnpm_20242_n3.entity.Author;
+import vn.edu.hust.nmcnpm_20242_n3.entity.Book;
+import vn.edu.hust.nmcnpm_20242_n3.entity.Category;
+import vn.edu.hust.nmcnpm_20242_n3.entity.Publisher;
+
+import java.util.List;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+class BookControllerQueryCountTests {
+
+    @Autowired
+    private BookController bookController;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    void listQueryCountDoesNotGrowWithResultSize() {
+        // Larger than both the batch fetch size (100) and the old 1000-id chunks, so neither
+        // batched publisher lookups nor chunked id lists can hide in the comparison
+        long small = queriesToListAfterAdding(50);
+        long large = queriesToListAfterAdding(2500);
+
+        assertEquals(small, large);
+    }
+
+    private long queriesToListAfterAdding(int books) {
+        for (int i = 0; i < books; i++) {
+            String suffix = books + "-" + i;
+            Publisher publisher = new Publisher("Query count publisher " + suffix);
+            Author first = new Author("Query count author A " + suffix);
+            Author second = new Author("Query count author B " + suffix);
+            Category category = new Category("Query count category " + suffix);
+            entityManager.persist(publisher);
+            entityManager.persist(first);
+            entityManager.persist(second);
+            entityManager.persist(category);
+
+            Book book = new Book();
+            book.setTitle("Query count book " + suffix);
+            book.setPublisher(publisher);
+            book.setAuthors(new HashSet<>(List.of(first, second)));
+            book.setCategories(new HashSet<>(List.of(category)));
+            entityManager.persist(book);
+        }
+        // Start from an empty persistence context, like a fresh request
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        List<?> body = (List<?>) bookController.getAllBooks(null).getBody();
+        assertNotNull(body);
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,34 @@
+package vn.edu.hust.nmcnpm_20242_n3.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConditionalGetTests {
+
+    private static final String ETAG = "\"books-epoch-3\"";
+
+    @Test
+    void matchingTagAnswersNotModifiedWithoutBuildingTheBody() {
+        ResponseEntity<String> response = ConditionalGet.respond("W/" + ETAG, ETAG,
+                () -> fail("body built for a matching tag"));
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals(ETAG, response.getHeaders().getETag());
+        assertNull(response.getBody());
+    }
+
+    @Test
+    void staleOrMissingTagAnswersWithTheBody() {
+        for (String ifNoneMatch : new String[] {null, "\"books-epoch-2\""}) {
+            ResponseEntity<String> response = ConditionalGet.respond(ifNoneMatch, ETAG, () -> "body");
+
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            assertEquals(ETAG, response.getHeaders().getETag());
+            assertEquals("no-cache", response.getHeaders().getCacheControl());
+            assertEquals("body", response.getBody());
+        }
+    }
+}
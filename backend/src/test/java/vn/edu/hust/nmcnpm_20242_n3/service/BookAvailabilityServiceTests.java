@@ -0,0 +1,75 @@
+package vn.edu.hust.nmcnpm_20242_n3.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import vn.edu.hust.nmcnpm_20242_n3.configuration.CacheConfig;
+import vn.edu.hust.nmcnpm_20242_n3.entity.Book;
+import vn.edu.hust.nmcnpm_20242_n3.repository.BookRepository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class BookAvailabilityServiceTests {
+
+    @Autowired
+    private BookAvailabilityService bookAvailabilityService;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Book book;
+
+    @AfterEach
+    void tearDown() {
+        if (book != null) {
+            bookRepository.deleteById(book.getBookId());
+        }
+    }
+
+    @Test
+    void cachedBookIsEvictedOnlyAfterTheCountersCommit() {
+        book = new Book();
+        book.setTitle("Availability " + System.nanoTime());
+        book = bookRepository.save(book);
+        Cache cache = cacheManager.getCache(CacheConfig.BOOK);
+        cache.put(book.getBookId(), "stale");
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            bookAvailabilityService.copiesAdded(book.getBookId(), 3);
+            bookAvailabilityService.availableChanged(book.getBookId(), -1);
+            assertNotNull(cache.get(book.getBookId()));
+        });
+
+        assertNull(cache.get(book.getBookId()));
+        Book stored = bookRepository.findById(book.getBookId()).orElseThrow();
+        assertEquals(3, stored.getTotalCopies());
+        assertEquals(2, stored.getAvailableCopies());
+    }
+
+    @Test
+    void rolledBackChangeKeepsTheCachedBook() {
+        book = new Book();
+        book.setTitle("Availability " + System.nanoTime());
+        book = bookRepository.save(book);
+        Cache cache = cacheManager.getCache(CacheConfig.BOOK);
+        cache.put(book.getBookId(), "current");
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            bookAvailabilityService.copiesAdded(book.getBookId(), 2);
+            status.setRollbackOnly();
+        });
+
+        assertEquals("current", cache.get(book.getBookId()).get());
+        assertEquals(0, bookRepository.findById(book.getBookId()).orElseThrow().getTotalCopies());
+        cache.evict(book.getBookId());
+    }
+}
@@ -0,0 +1,103 @@
+package vn.edu.hust.nmcnpm_20242_n3.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+import vn.edu.hust.nmcnpm_20242_n3.service.BookFacetIndex.Count;
+import vn.edu.hust.nmcnpm_20242_n3.service.BookFacetIndex.Facet;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookFacetIndexTests {
+
+    private BookFacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BookFacetIndex();
+        put(1, Map.of(10, "Nam Cao"), Map.of(20, "Novel"), 30, "Kim Dong");
+        put(2, Map.of(10, "Nam Cao"), Map.of(21, "Short story"), 30, "Kim Dong");
+        put(3, Map.of(11, "To Hoai"), Map.of(20, "Novel", 22, "Children"), 30, "Kim Dong");
+        put(4, Map.of(11, "To Hoai", 12, "Xuan Dieu"), Map.of(22, "Children"), 31, "Tre");
+        put(5, Map.of(12, "Xuan Dieu"), Map.of(23, "Poetry"), 31, "Tre");
+    }
+
+    private void put(int bookId, Map<Integer, String> authors, Map<Integer, String> categories,
+                     int publisherId, String publisher) {
+        Map<Facet, Map<Integer, String>> values = new EnumMap<>(Facet.class);
+        values.put(Facet.AUTHOR, authors);
+        values.put(Facet.CATEGORY, categories);
+        values.put(Facet.PUBLISHER, Map.of(publisherId, publisher));
+        index.put(new BookFacetIndex.Entry(bookId, values));
+    }
+
+    @Test
+    void countsEveryValueOfTheWholeCatalog() {
+        BookFacetIndex.Result result = index.facet(null, Map.of(), 20);
+
+        assertEquals(5, result.matches().getCardinality());
+        assertEquals(List.of(new Count(30, "Kim Dong", 3), new Count(31, "Tre", 2)), result.counts().get(Facet.PUBLISHER));
+        // Ties are ordered by name
+        assertEquals(List.of(new Count(10, "Nam Cao", 2), new Count(11, "To Hoai", 2), new Count(12, "Xuan Dieu", 2)),
+                result.counts().get(Facet.AUTHOR));
+        assertEquals(4, result.counts().get(Facet.CATEGORY).size());
+    }
+
+    @Test
+    void countsOnlyTheCandidatesAndHonoursMaxValues() {
+        BookFacetIndex.Result result = index.facet(RoaringBitmap.bitmapOf(3, 4, 99), Map.of(), 1);
+
+        assertEquals(2, result.matches().getCardinality());
+        assertEquals(List.of(new Count(11, "To Hoai", 2)), result.counts().get(Facet.AUTHOR));
+        assertEquals(List.of(new Count(22, "Children", 2)), result.counts().get(Facet.CATEGORY));
+    }
+
+    @Test
+    void selectedFacetKeepsCountsOfItsOtherValues() {
+        BookFacetIndex.Result result = index.facet(null, Map.of(Facet.PUBLISHER, 31, Facet.CATEGORY, 22), 20);
+
+        // Only book 4 is published by Tre and in Children
+        assertEquals(1, result.matches().getCardinality());
+        assertTrue(result.matches().contains(4));
+        // Publisher counts ignore the publisher selection but apply the category selection
+        assertEquals(List.of(new Count(30, "Kim Dong", 1), new Count(31, "Tre", 1)), result.counts().get(Facet.PUBLISHER));
+        // Category counts ignore the category selection but apply the publisher selection
+        assertEquals(List.of(new Count(22, "Children", 1), new Count(23, "Poetry", 1)), result.counts().get(Facet.CATEGORY));
+        // Authors are counted within the full selection
+        assertEquals(List.of(new Count(11, "To Hoai", 1), new Count(12, "Xuan Dieu", 1)), result.counts().get(Facet.AUTHOR));
+    }
+
+    @Test
+    void unknownSelectedValueMatchesNothing() {
+        BookFacetIndex.Result result = index.facet(null, Map.of(Facet.AUTHOR, 999), 20);
+
+        assertTrue(result.matches().isEmpty());
+        assertTrue(result.counts().get(Facet.CATEGORY).isEmpty());
+    }
+
+    @Test
+    void removedAndReplacedBooksLeaveTheCounts() {
+        index.remove(5);
+        // Book 4 moves to another publisher and loses its categories
+        put(4, Map.of(11, "To Hoai"), Map.of(), 30, "Kim Dong");
+
+        BookFacetIndex.Result result = index.facet(null, Map.of(), 20);
+        assertEquals(4, result.matches().getCardinality());
+        assertEquals(List.of(new Count(30, "Kim Dong", 4)), result.counts().get(Facet.PUBLISHER));
+        assertEquals(List.of(new Count(10, "Nam Cao", 2), new Count(11, "To Hoai", 2)), result.counts().get(Facet.AUTHOR));
+        assertTrue(result.counts().get(Facet.CATEGORY).stream().noneMatch(count -> count.id() == 23));
+        assertTrue(index.facet(null, Map.of(Facet.AUTHOR, 12), 20).matches().isEmpty());
+    }
+
+    @Test
+    void renamedValueIsCountedUnderItsNewName() {
+        put(1, Map.of(10, "Nam Cao (1915-1951)"), Map.of(20, "Novel"), 30, "Kim Dong");
+        put(2, Map.of(10, "Nam Cao (1915-1951)"), Map.of(21, "Short story"), 30, "Kim Dong");
+
+        assertEquals(new Count(10, "Nam Cao (1915-1951)", 2), index.facet(null, Map.of(), 20).counts().get(Facet.AUTHOR).get(0));
+    }
+}
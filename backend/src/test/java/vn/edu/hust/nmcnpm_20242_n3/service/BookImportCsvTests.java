@@ -0,0 +1,59 @@
+package vn.edu.hust.nmcnpm_20242_n3.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookImportCsvTests {
+
+    private static BufferedReader reader(String csv) {
+        return new BufferedReader(new StringReader(csv));
+    }
+
+    @Test
+    void splitsPlainFieldsAndKeepsEmptyOnes() throws IOException {
+        BufferedReader reader = reader("a,b,,d\ne,f\n");
+
+        assertEquals(List.of("a", "b", "", "d"), BookImportService.readCsvRecord(reader));
+        assertEquals(List.of("e", "f"), BookImportService.readCsvRecord(reader));
+        assertNull(BookImportService.readCsvRecord(reader));
+    }
+
+    @Test
+    void unquotesFieldsWithCommasAndDoubledQuotes() throws IOException {
+        BufferedReader reader = reader("\"Dế Mèn, phiêu lưu ký\",\"He said \"\"hi\"\"\",\"\"\n");
+
+        assertEquals(List.of("Dế Mèn, phiêu lưu ký", "He said \"hi\"", ""), BookImportService.readCsvRecord(reader));
+    }
+
+    @Test
+    void keepsLineBreaksInsideQuotedFields() throws IOException {
+        BufferedReader reader = reader("\"first line\nsecond line\",x\r\nnext,row");
+
+        assertEquals(List.of("first line\nsecond line", "x"), BookImportService.readCsvRecord(reader));
+        assertEquals(List.of("next", "row"), BookImportService.readCsvRecord(reader));
+        assertNull(BookImportService.readCsvRecord(reader));
+    }
+
+    @Test
+    void treatsCrlfLikeLf() throws IOException {
+        BufferedReader reader = reader("title,authors\r\nA,B;C\r\n");
+
+        assertEquals(List.of("title", "authors"), BookImportService.readCsvRecord(reader));
+        assertEquals(List.of("A", "B;C"), BookImportService.readCsvRecord(reader));
+        assertNull(BookImportService.readCsvRecord(reader));
+    }
+
+    @Test
+    void quotedFieldAtEndOfInput() throws IOException {
+        BufferedReader reader = reader("a,\"b\"");
+
+        assertEquals(List.of("a", "b"), BookImportService.readCsvRecord(reader));
+        assertNull(BookImportService.readCsvRecord(reader));
+    }
+}
@@ -0,0 +1,63 @@
+package vn.edu.hust.nmcnpm_20242_n3.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import vn.edu.hust.nmcnpm_20242_n3.dto.BookImportResultDTO;
+import vn.edu.hust.nmcnpm_20242_n3.repository.BookRepository;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class BookImportServiceTests {
+
+    @Autowired
+    private BookImportService bookImportService;
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private BookRepository bookRepository;
+
+    private final String suffix = Long.toString(System.nanoTime());
+
+    @AfterEach
+    void tearDown() {
+        for (String title : List.of("Imported one " + suffix, "Imported two " + suffix)) {
+            bookRepository.findByTitle(title).ifPresent(book -> bookService.deleteById(book.getBookId()));
+        }
+    }
+
+    @Test
+    void rejectedRowsAreReportedAndDoNotStopTheImport() throws Exception {
+        String csv = "title,publisher\n"
+                + "Imported one " + suffix + ",\n"
+                // Passes validation but fails on insert, which rolls back its whole chunk
+                + "x".repeat(300) + ",\n"
+                + ",\n"
+                + "Unknown publisher book " + suffix + ",No such publisher " + suffix + "\n"
+                + "Imported one " + suffix + ",\n"
+                + "Imported two " + suffix + ",\n";
+
+        BookImportResultDTO result = bookImportService.importBooks(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), BookImportService.Format.CSV);
+
+        assertEquals(6, result.getTotalRows());
+        assertEquals(2, result.getImported());
+        assertEquals(4, result.getFailed());
+        Map<Integer, String> errors = result.getErrors().stream()
+                .collect(Collectors.toMap(BookImportResultDTO.RowError::row, BookImportResultDTO.RowError::message));
+        assertTrue(errors.get(2).startsWith("Insert failed"));
+        assertEquals("Title is required", errors.get(3));
+        assertTrue(errors.get(4).startsWith("Unknown publisher"));
+        assertTrue(errors.get(5).startsWith("Duplicate title in the import"));
+        assertTrue(bookRepository.findByTitle("Imported one " + suffix).isPresent());
+        assertTrue(bookRepository.findByTitle("Imported two " + suffix).isPresent());
+    }
+}
@@ -0,0 +1,46 @@
+package vn.edu.hust.nmcnpm_20242_n3.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookIndexServiceTests {
+
+    private BookIndexService bookIndexService;
+
+    @BeforeEach
+    void setUp() {
+        // Outside a transaction the index is updated at once, and the repository is never read
+        bookIndexService = new BookIndexService(null, true, false, 1000);
+        for (int i = 0; i < 300; i++) {
+            int publisherId = i % 3;
+            bookIndexService.index(i + 1, "Vol" + Integer.toString(i, 36) + "x", Map.of(), Map.of(),
+                    Map.of(publisherId, "Publisher " + publisherId));
+        }
+    }
+
+    @Test
+    void facetCountsCoverEveryMatchOfABroadPrefix() {
+        // "vol" has far more completions than the search index lists as expansions
+        BookIndexService.FacetPage page = bookIndexService.facetSearch("vol", Map.of(), 1, 20, 10);
+
+        assertEquals(300, page.totalElements());
+        assertEquals(20, page.ids().size());
+        assertEquals(List.of(100, 100, 100), page.counts().get(BookFacetIndex.Facet.PUBLISHER).stream()
+                .map(BookFacetIndex.Count::count).toList());
+    }
+
+    @Test
+    void selectionAndPagingApplyToTheFullMatchSet() {
+        BookIndexService.FacetPage page = bookIndexService.facetSearch("vol",
+                Map.of(BookFacetIndex.Facet.PUBLISHER, 1), 5, 20, 10);
+
+        assertEquals(100, page.totalElements());
+        assertEquals(20, page.ids().size());
+        assertTrue(page.ids().stream().allMatch(id -> (id - 1) % 3 == 1));
+    }
+}
@@ -0,0 +1,62 @@
+package vn.edu.hust.nmcnpm_20242_n3.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import vn.edu.hust.nmcnpm_20242_n3.constant.BookLoanStatusEnum;
+import vn.edu.hust.nmcnpm_20242_n3.entity.Book;
+import vn.edu.hust.nmcnpm_20242_n3.entity.BookCopy;
+import vn.edu.hust.nmcnpm_20242_n3.entity.BookLoan;
+import vn.edu.hust.nmcnpm_20242_n3.entity.User;
+import vn.edu.hust.nmcnpm_20242_n3.repository.BookLoanRepository;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "loans.overdue.chunk-size=2")
+class BookLoanServiceTests {
+
+    @Autowired
+    private BookLoanService bookLoanService;
+    @Autowired
+    private LibraryFixture fixture;
+    @Autowired
+    private BookLoanRepository bookLoanRepository;
+
+    @AfterEach
+    void tearDown() {
+        fixture.cleanUp();
+    }
+
+    @Test
+    void sweepMarksEveryPastDueLoanAcrossChunks() {
+        Book book = fixture.createBook("Overdue sweep", 5);
+        User user = fixture.createUsers("Overdue sweep", 1).get(0);
+
+        // Five loans, each one day past due
+        Set<String> loanIds = new HashSet<>();
+        for (BookCopy copy : fixture.copiesOf(book)) {
+            String loanId = bookLoanService.newBookLoan(user.getId(), copy.getId()).getId();
+            fixture.makeDueAt(loanId, System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1));
+            loanIds.add(loanId);
+        }
+
+        List<List<String>> chunks = new ArrayList<>();
+        int marked = bookLoanService.sweepOverdueLoans(chunks::add);
+
+        assertTrue(marked >= loanIds.size());
+        assertTrue(chunks.stream().allMatch(chunk -> chunk.size() <= 2));
+        assertTrue(chunks.stream().flatMap(List::stream).toList().containsAll(loanIds));
+        for (String loanId : loanIds) {
+            BookLoan loan = bookLoanRepository.findById(loanId).orElseThrow();
+            assertEquals(BookLoanStatusEnum.OVERDUE, loan.getStatus());
+            assertEquals(loan.getDueDate(), loan.getFineAccruedUntil());
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package vn.edu.hust.nmcnpm_20242_n3.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import vn.edu.hust.nmcnpm_20242_n3.constant.BookRequestStatusEnum;
+import vn.edu.hust.nmcnpm_20242_n3.entity.Book;
+import vn.edu.hust.nmcnpm_20242_n3.entity.BookCopy;
+import vn.edu.hust.nmcnpm_20242_n3.entity.BookRequest;
+import vn.edu.hust.nmcnpm_20242_n3.entity.User;
+import vn.edu.hust.nmcnpm_20242_n3.repository.BookLoanRepository;
+import vn.edu.hust.nmcnpm_20242_n3.repository.BookRepository;
+import vn.edu.hust.nmcnpm_20242_n3.repository.BookRequestRepository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not @Transactional: every caller runs in its own transaction, like concurrent HTTP requests
+@SpringBootTest
+class BookRequestServiceConcurrencyTests {
+
+    private static final int COPIES = 20;
+    private static final int CALLERS = 25;
+    private static final int ROUNDS = 5;
+
+    @Autowired
+    private BookRequestService bookRequestService;
+    @Autowired
+    private LibraryFixture fixture;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private BookRequestRepository bookRequestRepository;
+    @Autowired
+    private BookLoanRepository bookLoanRepository;
+
+    private Book book;
+    private List<User> users;
+
+    @AfterEach
+    void tearDown() {
+        fixture.cleanUp();
+    }
+
+    private void createBookWithCopiesAndUsers(String name, int copies, int userCount) {
+        book = fixture.createBook(name, copies);
+        users = fixture.createUsers(name, userCount);
+    }
+
+    @Test
+    void concurrentRandomBorrowsClaimDistinctCopies() throws Exception {
+        createBookWithCopiesAndUsers("Concurrent borrow", COPIES, CALLERS);
+
+        // Every round cancels its requests, so the next round races for the released copies again
+        for (int round = 0; round < ROUNDS; round++) {
+            ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Long>> results = new ArrayList<>();
+            for (User user : users) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    long begin = System.nanoTime();
+                    bookRequestService.newBorrowingRequestForBook(user.getId(), book.getBookId());
+                    return System.nanoTime() - begin;
+                }));
+            }
+            start.countDown();
+
+            int succeeded = 0;
+            for (Future<Long> result : results) {
+                try {
+                    assertTrue(result.get(30, TimeUnit.SECONDS) < TimeUnit.SECONDS.toNanos(5), "claim took too long");
+                    succeeded++;
+                } catch (ExecutionException e) {
+                    assertInstanceOf(IllegalArgumentException.class, e.getCause());
+                }
+            }
+            executor.shutdown();
+
+            Set<Integer> claimedCopies = new HashSet<>();
+            List<String> pending = new ArrayList<>();
+            for (User user : users) {
+                for (BookRequest request : bookRequestRepository.findByUserId(user.getId())) {
+                    if (request.getStatus() == BookRequestStatusEnum.PENDING) {
+                        assertTrue(claimedCopies.add(request.getBookCopy().getId()), "copy claimed twice in round " + round);
+                        pending.add(request.getId());
+                    }
+                }
+            }
+
+            // Every copy is handed out exactly once; only the callers beyond the number of copies fail
+            assertEquals(COPIES, succeeded);
+            assertEquals(COPIES, claimedCopies.size());
+            pending.forEach(bookRequestService::cancelRequest);
+        }
+    }
+
+    @Test
+    void concurrentApprovalsNeverLendACopyTwice() throws Exception {
+        int copies = 10;
+        int requestsPerCopy = 5;
+        createBookWithCopiesAndUsers("Concurrent approval", copies, copies * requestsPerCopy);
+        List<BookCopy> bookCopies = fixture.copiesOf(book);
+        List<String> requestIds = new ArrayList<>();
+        for (int i = 0; i < users.size(); i++) {
+            BookCopy copy = bookCopies.get(i % copies);
+            requestIds.add(bookRequestService.newBorrowingRequest(users.get(i).getId(), copy.getId()).getId());
+        }
+        Collections.shuffle(requestIds, new Random(42));
+
+        // Every request for a copy is approved at the same time by a different desk
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (String requestId : requestIds) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return bookRequestService.processRequest(requestId, true);
+            }));
+        }
+        start.countDown();
+
+        int approved = 0;
+        int rejected = 0;
+        for (Future<?> result : results) {
+            try {
+                result.get(60, TimeUnit.SECONDS);
+                approved++;
+            } catch (ExecutionException e) {
+                assertInstanceOf(IllegalStateException.class, e.getCause());
+                rejected++;
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(copies, approved);
+        assertEquals(requestIds.size() - copies, rejected);
+        for (BookCopy copy : bookCopies) {
+            assertEquals(1, bookLoanRepository.findAllByBookCopyId(copy.getId()).size(), "copy lent more than once");
+        }
+        assertEquals(0, bookRepository.findById(book.getBookId()).orElseThrow().getAvailableCopies());
+    }
+}
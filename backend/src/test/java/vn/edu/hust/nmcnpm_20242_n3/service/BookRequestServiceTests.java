@@ -0,0 +1,152 @@
+package vn.edu.hust.nmcnpm_20242_n3.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import vn.edu.hust.nmcnpm_20242_n3.constant.BookCopyStatusEnum;
+import vn.edu.hust.nmcnpm_20242_n3.constant.BookLoanStatusEnum;
+import vn.edu.hust.nmcnpm_20242_n3.constant.BookRequestStatusEnum;
+import vn.edu.hust.nmcnpm_20242_n3.dto.BookRequestBatchResultDTO;
+import vn.edu.hust.nmcnpm_20242_n3.dto.BookRequestDTO;
+import vn.edu.hust.nmcnpm_20242_n3.dto.BookRequestDecisionDTO;
+import vn.edu.hust.nmcnpm_20242_n3.dto.BookRequestPageDTO;
+import vn.edu.hust.nmcnpm_20242_n3.entity.Book;
+import vn.edu.hust.nmcnpm_20242_n3.entity.BookCopy;
+import vn.edu.hust.nmcnpm_20242_n3.entity.BookLoan;
+import vn.edu.hust.nmcnpm_20242_n3.entity.User;
+import vn.edu.hust.nmcnpm_20242_n3.repository.BookCopyRepository;
+import vn.edu.hust.nmcnpm_20242_n3.repository.BookLoanRepository;
+import vn.edu.hust.nmcnpm_20242_n3.repository.BookRepository;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class BookRequestServiceTests {
+
+    @Autowired
+    private BookRequestService bookRequestService;
+    @Autowired
+    private LibraryFixture fixture;
+    @Autowired
+    private LoanDueScheduler loanDueScheduler;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private BookCopyRepository bookCopyRepository;
+    @Autowired
+    private BookLoanRepository bookLoanRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Book book;
+    private List<User> users;
+
+    @AfterEach
+    void tearDown() {
+        fixture.cleanUp();
+    }
+
+    private List<BookCopy> createBookWithCopiesAndUsers(int copies, int userCount) {
+        book = fixture.createBook("Request service", copies);
+        users = fixture.createUsers("Request service", userCount);
+        return fixture.copiesOf(book);
+    }
+
+    @Test
+    void overdueLoanCanBeReturned() {
+        BookCopy copy = createBookWithCopiesAndUsers(1, 1).get(0);
+        String userId = users.get(0).getId();
+        String loanId = fixture.lend(copy, users.get(0));
+
+        // One day late when the due wheel or sweep reaches it
+        fixture.makeDueAt(loanId, System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1));
+        List<String> marked = new TransactionTemplate(transactionManager).execute(status ->
+                bookLoanRepository.markOverdueByIds(List.of(loanId), new Date()));
+        assertEquals(List.of(loanId), marked);
+
+        String returnId = bookRequestService.newReturningRequest(userId, copy.getId()).getId();
+        assertEquals(BookRequestStatusEnum.ACCEPTED, bookRequestService.processRequest(returnId, true).getStatus());
+
+        BookLoan returned = bookLoanRepository.findById(loanId).orElseThrow();
+        assertEquals(BookLoanStatusEnum.RETURNED, returned.getStatus());
+        assertNotNull(returned.getActualReturnDate());
+        assertEquals(BookCopyStatusEnum.AVAILABLE, bookCopyRepository.findById(copy.getId()).orElseThrow().getStatus());
+        assertEquals(1, bookRepository.findById(book.getBookId()).orElseThrow().getAvailableCopies());
+        assertFalse(loanDueScheduler.isScheduled(loanId));
+    }
+
+    @Test
+    void queueListsPendingRequestsFirstAcrossPages() {
+        List<BookCopy> copies = createBookWithCopiesAndUsers(4, 1);
+        String userId = users.get(0).getId();
+        List<String> ids = new ArrayList<>();
+        for (BookCopy copy : copies) {
+            ids.add(bookRequestService.newBorrowingRequest(userId, copy.getId()).getId());
+        }
+        bookRequestService.processRequest(ids.get(0), false);
+        bookRequestService.processRequest(ids.get(1), false);
+
+        // The first page straddles the pending and settled ranges
+        BookRequestPageDTO first = bookRequestService.getRequestQueue(null, null, userId, null, null, 1, 3);
+        BookRequestPageDTO second = bookRequestService.getRequestQueue(null, null, userId, null, null, 2, 3);
+        assertEquals(List.of(ids.get(2), ids.get(3), ids.get(0)), first.getRequests().stream().map(BookRequestDTO::getId).toList());
+        assertEquals(List.of(ids.get(1)), second.getRequests().stream().map(BookRequestDTO::getId).toList());
+        assertEquals(4, first.getTotalElements());
+
+        BookRequestPageDTO denied = bookRequestService.getRequestQueue(BookRequestStatusEnum.DENIED, null, userId, null, null, 1, 3);
+        assertEquals(List.of(ids.get(0), ids.get(1)), denied.getRequests().stream().map(BookRequestDTO::getId).toList());
+        assertEquals(2, denied.getTotalElements());
+    }
+
+    @Test
+    void batchReportsInvalidDecisionsWithoutAffectingTheOthers() {
+        List<BookCopy> copies = createBookWithCopiesAndUsers(3, 1);
+        String userId = users.get(0).getId();
+        String approved = bookRequestService.newBorrowingRequest(userId, copies.get(0).getId()).getId();
+        String denied = bookRequestService.newBorrowingRequest(userId, copies.get(1).getId()).getId();
+        String alreadyDenied = bookRequestService.newBorrowingRequest(userId, copies.get(2).getId()).getId();
+        bookRequestService.processRequest(alreadyDenied, false);
+
+        List<BookRequestBatchResultDTO> results = bookRequestService.processRequests(List.of(
+                new BookRequestDecisionDTO(approved, true),
+                new BookRequestDecisionDTO("missing-request", true),
+                new BookRequestDecisionDTO(alreadyDenied, true),
+                new BookRequestDecisionDTO(denied, false)));
+
+        assertEquals(List.of(approved, "missing-request", alreadyDenied, denied),
+                results.stream().map(BookRequestBatchResultDTO::getRequestId).toList());
+        assertEquals(List.of(true, false, false, true), results.stream().map(BookRequestBatchResultDTO::isSuccess).toList());
+        assertNull(results.get(1).getRequest());
+        assertEquals(BookRequestStatusEnum.ACCEPTED, results.get(0).getRequest().getStatus());
+        assertEquals(BookRequestStatusEnum.DENIED, results.get(2).getRequest().getStatus());
+        assertEquals(BookRequestStatusEnum.DENIED, results.get(3).getRequest().getStatus());
+
+        assertEquals(BookCopyStatusEnum.UNAVAILABLE, bookCopyRepository.findById(copies.get(0).getId()).orElseThrow().getStatus());
+        assertEquals(2, bookRepository.findById(book.getBookId()).orElseThrow().getAvailableCopies());
+    }
+
+    @Test
+    void batchLendsACopyOnlyOnce() {
+        BookCopy copy = createBookWithCopiesAndUsers(1, 2).get(0);
+        String first = bookRequestService.newBorrowingRequest(users.get(0).getId(), copy.getId()).getId();
+        String second = bookRequestService.newBorrowingRequest(users.get(1).getId(), copy.getId()).getId();
+
+        List<BookRequestBatchResultDTO> results = bookRequestService.processRequests(List.of(
+                new BookRequestDecisionDTO(first, true),
+                new BookRequestDecisionDTO(second, true)));
+
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertEquals(BookRequestStatusEnum.PENDING, results.get(1).getRequest().getStatus());
+        assertEquals(1, bookLoanRepository.findAllByBookCopyId(copy.getId()).size());
+        assertEquals(0, bookRepository.findById(book.getBookId()).orElseThrow().getAvailableCopies());
+    }
+}
@@ -0,0 +1,140 @@
+package vn.edu.hust.nmcnpm_20242_n3.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookSearchIndexTests {
+
+    private BookSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BookSearchIndex();
+        index.put(new BookSearchIndex.Document(1, "Đất Rừng Phương Nam", List.of("Đoàn Giỏi"), List.of("Tiểu thuyết"), "Kim Đồng"));
+        index.put(new BookSearchIndex.Document(2, "Dế Mèn Phiêu Lưu Ký", List.of("Tô Hoài"), List.of("Thiếu nhi"), "Kim Đồng"));
+        index.put(new BookSearchIndex.Document(3, "Clean Code", List.of("Robert Martin"), List.of("Programming"), "Prentice Hall"));
+        index.put(new BookSearchIndex.Document(4, "Code Complete", List.of("Steve McConnell"), List.of("Programming"), "Microsoft Press"));
+        index.put(new BookSearchIndex.Document(5, "The Pragmatic Programmer", List.of("Andrew Hunt", "David Thomas"), List.of("Programming"), "Addison-Wesley"));
+    }
+
+    @Test
+    void matchesWithoutDiacritics() {
+        assertEquals(List.of(1), index.search("dat rung", 10, false));
+        assertEquals(List.of(2), index.search("to hoai", 10, false));
+    }
+
+    @Test
+    void lastTermMatchesAsPrefix() {
+        assertEquals(List.of(3), index.search("clean co", 10, false));
+        assertEquals(List.of(5), index.search("pragm", 10, false));
+    }
+
+    @Test
+    void titleMatchesRankAboveCategoryMatches() {
+        List<Integer> results = index.search("programming", 10, false);
+
+        assertEquals(3, results.size());
+        // "Programmer" in the title is only a prefix match, the others match on the category
+        assertEquals(List.of(5, 3, 4), index.search("program", 10, false));
+    }
+
+    @Test
+    void typoToleranceIsOptional() {
+        assertTrue(index.search("pragmatik programmer", 10, false).isEmpty());
+        assertEquals(List.of(5), index.search("pragmatik programmer", 10, true));
+    }
+
+    @Test
+    void updatesAndRemovalsAreApplied() {
+        index.put(new BookSearchIndex.Document(3, "Clean Architecture", List.of("Robert Martin"), List.of("Programming"), "Prentice Hall"));
+        assertTrue(index.search("clean code", 10, false).isEmpty());
+        assertEquals(List.of(3), index.search("clean architecture", 10, false));
+
+        index.remove(3);
+        assertTrue(index.search("clean", 10, false).isEmpty());
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void broadPrefixAloneMatchesEveryCompletion() {
+        // More distinct completions of "vol" than the index lists as expansions
+        for (int i = 0; i < 200; i++) {
+            index.put(new BookSearchIndex.Document(100 + i, "Vol" + Integer.toString(i, 36) + "x series", List.of(), List.of(), null));
+        }
+
+        assertEquals(200, index.search("vol", 500, false).size());
+        assertEquals(200, index.matchingIds("vol", false).length);
+        assertEquals(10, index.search("vol", 10, false).size());
+        // Combined with another term the prefix is checked per candidate, with the same result
+        assertEquals(200, index.matchingIds("series vol", false).length);
+    }
+
+    @Test
+    void withinOneEdit() {
+        assertTrue(BookSearchIndex.withinOneEdit("code", "code"));
+        assertTrue(BookSearchIndex.withinOneEdit("code", "cude"));
+        assertTrue(BookSearchIndex.withinOneEdit("code", "cdoe"));
+        assertTrue(BookSearchIndex.withinOneEdit("code", "codes"));
+        assertTrue(BookSearchIndex.withinOneEdit("code", "cod"));
+        assertFalse(BookSearchIndex.withinOneEdit("code", "cold"));
+    }
+
+    @Test
+    @Tag("benchmark")
+    void benchmarkSearchAtOneMillionTitles() {
+        int books = 1_000_000;
+        int queries = 10_000;
+        Random random = new Random(42);
+        String[] vocabulary = new String[50_000];
+        for (int i = 0; i < vocabulary.length; i++) {
+            vocabulary[i] = randomWord(random);
+        }
+
+        BookSearchIndex large = new BookSearchIndex();
+        String[] titles = new String[books];
+        for (int id = 1; id <= books; id++) {
+            StringBuilder title = new StringBuilder();
+            int words = 2 + random.nextInt(4);
+            for (int w = 0; w < words; w++) {
+                title.append(vocabulary[random.nextInt(vocabulary.length)]).append(' ');
+            }
+            titles[id - 1] = title.toString();
+            large.put(new BookSearchIndex.Document(id, titles[id - 1],
+                    List.of(vocabulary[random.nextInt(vocabulary.length)]),
+                    List.of("category" + random.nextInt(200)), "publisher" + random.nextInt(1000)));
+        }
+
+        // The first round only warms up the JIT
+        long[] latencies = new long[queries];
+        for (int round = 0; round < 2; round++) {
+            for (int q = 0; q < queries; q++) {
+                // Two words of an existing title, the second one still being typed
+                String[] words = titles[random.nextInt(books)].split(" ");
+                String query = words[0] + " " + words[1].substring(0, Math.max(2, words[1].length() - 2));
+                long start = System.nanoTime();
+                List<Integer> results = large.search(query, 20, true);
+                latencies[q] = System.nanoTime() - start;
+                assertFalse(results.isEmpty());
+            }
+        }
+
+        Arrays.sort(latencies);
+        double p99 = latencies[queries * 99 / 100] / 1e6;
+        assertTrue(p99 < 1.0, "p99 " + p99 + " ms");
+    }
+
+    private static String randomWord(Random random) {
+        char[] letters = new char[4 + random.nextInt(6)];
+        for (int i = 0; i < letters.length; i++) {
+            letters[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(letters);
+    }
+}
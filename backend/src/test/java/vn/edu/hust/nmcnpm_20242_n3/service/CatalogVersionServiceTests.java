@@ -0,0 +1,94 @@
+package vn.edu.hust.nmcnpm_20242_n3.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import vn.edu.hust.nmcnpm_20242_n3.service.CatalogVersionService.Resource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogVersionServiceTests {
+
+    private final CatalogVersionService versions = new CatalogVersionService();
+
+    // Only drives transaction synchronization, there is no resource behind it
+    private final TransactionTemplate transaction = new TransactionTemplate(new AbstractPlatformTransactionManager() {
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    });
+
+    @Test
+    void matchesIgnoresWeakPrefixesAndAcceptsWildcard() {
+        String etag = versions.etag(Resource.BOOKS);
+
+        assertTrue(CatalogVersionService.matches(etag, etag));
+        assertTrue(CatalogVersionService.matches("W/" + etag, etag));
+        assertTrue(CatalogVersionService.matches("\"other\", W/" + etag, etag));
+        assertTrue(CatalogVersionService.matches("*", etag));
+        assertFalse(CatalogVersionService.matches("\"other\"", etag));
+        assertFalse(CatalogVersionService.matches(" ", etag));
+        assertFalse(CatalogVersionService.matches(null, etag));
+    }
+
+    @Test
+    void bumpChangesOnlyTheBumpedResource() {
+        String authors = versions.etag(Resource.AUTHORS);
+        String books = versions.etag(Resource.BOOKS);
+
+        versions.bump(Resource.AUTHORS);
+
+        assertNotEquals(authors, versions.etag(Resource.AUTHORS));
+        assertEquals(books, versions.etag(Resource.BOOKS));
+    }
+
+    @Test
+    void bumpInsideATransactionAppliesOnlyAfterCommit() {
+        String before = versions.etag(Resource.CATEGORIES);
+
+        transaction.executeWithoutResult(status -> {
+            versions.bump(Resource.CATEGORIES);
+            assertEquals(before, versions.etag(Resource.CATEGORIES));
+        });
+        String committed = versions.etag(Resource.CATEGORIES);
+        assertNotEquals(before, committed);
+
+        transaction.executeWithoutResult(status -> {
+            versions.bump(Resource.CATEGORIES);
+            status.setRollbackOnly();
+        });
+        assertEquals(committed, versions.etag(Resource.CATEGORIES));
+    }
+
+    @Test
+    void bookBumpsChangeTheBookAndTheCollection() {
+        String one = versions.bookEtag(1);
+        String two = versions.bookEtag(2);
+        String books = versions.etag(Resource.BOOKS);
+
+        versions.bumpBook(1);
+        assertNotEquals(one, versions.bookEtag(1));
+        assertEquals(two, versions.bookEtag(2));
+        assertNotEquals(books, versions.etag(Resource.BOOKS));
+
+        String bumpedOne = versions.bookEtag(1);
+        versions.bumpAllBooks();
+        assertNotEquals(bumpedOne, versions.bookEtag(1));
+        assertNotEquals(two, versions.bookEtag(2));
+    }
+}
@@ -0,0 +1,105 @@
+package vn.edu.hust.nmcnpm_20242_n3.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import vn.edu.hust.nmcnpm_20242_n3.entity.Book;
+import vn.edu.hust.nmcnpm_20242_n3.entity.BookLoan;
+import vn.edu.hust.nmcnpm_20242_n3.entity.Fine;
+import vn.edu.hust.nmcnpm_20242_n3.entity.User;
+import vn.edu.hust.nmcnpm_20242_n3.repository.BookLoanRepository;
+import vn.edu.hust.nmcnpm_20242_n3.repository.FineRepository;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class FineAccrualServiceTests {
+
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+
+    @Autowired
+    private FineAccrualService fineAccrualService;
+    @Autowired
+    private LibraryFixture fixture;
+    @Autowired
+    private BookLoanRepository bookLoanRepository;
+    @Autowired
+    private FineRepository fineRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private String loanId;
+
+    @AfterEach
+    void tearDown() {
+        fixture.cleanUp();
+    }
+
+    // Lends a copy, backdates the loan so that it fell due at dueAt, and marks it OVERDUE
+    private BookLoan overdueLoanDueAt(long dueAt) {
+        Book book = fixture.createBook("Fine accrual", 1);
+        User user = fixture.createUsers("Fine accrual", 1).get(0);
+        loanId = fixture.lend(fixture.copiesOf(book).get(0), user);
+        fixture.makeDueAt(loanId, dueAt);
+        transaction().execute(status -> bookLoanRepository.markOverdueByIds(List.of(loanId), new Date()));
+        return bookLoanRepository.findById(loanId).orElseThrow();
+    }
+
+    private TransactionTemplate transaction() {
+        return new TransactionTemplate(transactionManager);
+    }
+
+    private void accrueAt(long now) {
+        transaction().execute(status -> fineRepository.accrueOverdueFines(
+                new Date(now), new Date(now - DAY), 1.0, 5000));
+    }
+
+    private double finedAmount() {
+        return fineRepository.findByBookLoanId(loanId).stream().mapToDouble(Fine::getAmount).sum();
+    }
+
+    @Test
+    void runningTwiceFinesEachDayOnce() {
+        long dueAt = System.currentTimeMillis() - 2 * DAY - 12 * HOUR;
+        overdueLoanDueAt(dueAt);
+
+        fineAccrualService.accrueOverdueFines();
+        List<Fine> first = fineRepository.findByBookLoanId(loanId);
+        fineAccrualService.accrueOverdueFines();
+
+        // Two whole days, fined once however often the job runs
+        assertEquals(1, first.size());
+        assertEquals(2.0, first.get(0).getAmount());
+        assertEquals(1, fineRepository.findByBookLoanId(loanId).size());
+    }
+
+    @Test
+    void partialDayCarriesOverToTheNextRun() {
+        BookLoan loan = overdueLoanDueAt(System.currentTimeMillis() - 3 * DAY);
+        long dueAt = loan.getDueDate().getTime();
+
+        // 2.5 days late: two days fined, the watermark moves by exactly two days
+        accrueAt(dueAt + 2 * DAY + 12 * HOUR);
+        assertEquals(2.0, finedAmount());
+        assertEquals(dueAt + 2 * DAY, bookLoanRepository.findById(loanId).orElseThrow().getFineAccruedUntil().getTime());
+
+        // The same run again, and a run 10 hours later, still have less than a day to fine
+        accrueAt(dueAt + 2 * DAY + 12 * HOUR);
+        accrueAt(dueAt + 2 * DAY + 22 * HOUR);
+        assertEquals(1, fineRepository.findByBookLoanId(loanId).size());
+
+        // The half day left over from the first run completes the third day
+        accrueAt(dueAt + 3 * DAY + 1 * HOUR);
+        assertEquals(2, fineRepository.findByBookLoanId(loanId).size());
+        assertEquals(3.0, finedAmount());
+        assertEquals(dueAt + 3 * DAY, bookLoanRepository.findById(loanId).orElseThrow().getFineAccruedUntil().getTime());
+    }
+}
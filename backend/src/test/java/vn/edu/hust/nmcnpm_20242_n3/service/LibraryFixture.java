@@ -0,0 +1,137 @@
+package vn.edu.hust.nmcnpm_20242_n3.service;
+
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import vn.edu.hust.nmcnpm_20242_n3.entity.Book;
+import vn.edu.hust.nmcnpm_20242_n3.entity.BookCopy;
+import vn.edu.hust.nmcnpm_20242_n3.entity.BookLoan;
+import vn.edu.hust.nmcnpm_20242_n3.entity.User;
+import vn.edu.hust.nmcnpm_20242_n3.repository.BookCopyRepository;
+import vn.edu.hust.nmcnpm_20242_n3.repository.BookLoanRepository;
+import vn.edu.hust.nmcnpm_20242_n3.repository.BookRepository;
+import vn.edu.hust.nmcnpm_20242_n3.repository.BookRequestRepository;
+import vn.edu.hust.nmcnpm_20242_n3.repository.FineRepository;
+import vn.edu.hust.nmcnpm_20242_n3.repository.UserRepository;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Books, copies, users and loans for the service tests that run against the database without a
+ * surrounding transaction. Test classes autowire it and call {@link #cleanUp()} after each test,
+ * which deletes everything the fixture created, dependents first. A new instance is injected into
+ * every test.
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+class LibraryFixture {
+
+    private final BookRequestService bookRequestService;
+    private final BookCopyService bookCopyService;
+    private final BookRepository bookRepository;
+    private final BookCopyRepository bookCopyRepository;
+    private final BookRequestRepository bookRequestRepository;
+    private final BookLoanRepository bookLoanRepository;
+    private final FineRepository fineRepository;
+    private final UserRepository userRepository;
+
+    // Keeps titles and usernames unique across tests that share the database
+    private final String suffix = Long.toString(System.nanoTime());
+    private final List<Book> books = new ArrayList<>();
+    private final List<User> users = new ArrayList<>();
+
+    LibraryFixture(BookRequestService bookRequestService, BookCopyService bookCopyService,
+                   BookRepository bookRepository, BookCopyRepository bookCopyRepository,
+                   BookRequestRepository bookRequestRepository, BookLoanRepository bookLoanRepository,
+                   FineRepository fineRepository, UserRepository userRepository) {
+        this.bookRequestService = bookRequestService;
+        this.bookCopyService = bookCopyService;
+        this.bookRepository = bookRepository;
+        this.bookCopyRepository = bookCopyRepository;
+        this.bookRequestRepository = bookRequestRepository;
+        this.bookLoanRepository = bookLoanRepository;
+        this.fineRepository = fineRepository;
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Saves a book titled after {@code name} with {@code copies} available copies.
+     */
+    Book createBook(String name, int copies) {
+        Book book = new Book();
+        book.setTitle(name + " " + suffix + "-" + books.size());
+        book = bookRepository.save(book);
+        books.add(book);
+        bookCopyService.createBookCopies(book.getBookId(), copies);
+        return book;
+    }
+
+    List<BookCopy> copiesOf(Book book) {
+        return bookCopyRepository.findByOriginalBook_BookId(book.getBookId());
+    }
+
+    /**
+     * Saves {@code count} users named after {@code name}.
+     */
+    List<User> createUsers(String name, int count) {
+        List<User> created = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            User user = new User();
+            user.setName(name + " user " + i);
+            user.setUserName(name.toLowerCase().replace(' ', '-') + "-" + suffix + "-" + users.size());
+            user.setPassword("password");
+            user = userRepository.save(user);
+            users.add(user);
+            created.add(user);
+        }
+        return created;
+    }
+
+    /**
+     * Lends a copy through an approved borrowing request.
+     *
+     * @return The id of the new loan.
+     */
+    String lend(BookCopy copy, User user) {
+        String requestId = bookRequestService.newBorrowingRequest(user.getId(), copy.getId()).getId();
+        return bookRequestService.processRequest(requestId, true).getBookLoanId();
+    }
+
+    /**
+     * Moves a loan back or forward so that it falls due at {@code dueAt}, in epoch millis.
+     */
+    BookLoan makeDueAt(String loanId, long dueAt) {
+        BookLoan loan = bookLoanRepository.findById(loanId).orElseThrow();
+        loan.setLoanedAt(new Date(dueAt - TimeUnit.DAYS.toMillis(loan.getLoan_duration())));
+        return bookLoanRepository.save(loan);
+    }
+
+    /**
+     * Deletes the requests, fines, loans, copies, books and users created through this fixture.
+     */
+    void cleanUp() {
+        for (User user : users) {
+            bookRequestRepository.deleteAll(bookRequestRepository.findByUserId(user.getId()));
+        }
+        for (Book book : books) {
+            List<BookCopy> copies = copiesOf(book);
+            for (BookCopy copy : copies) {
+                List<BookLoan> loans = bookLoanRepository.findAllByBookCopyId(copy.getId());
+                for (BookLoan loan : loans) {
+                    fineRepository.deleteAll(fineRepository.findByBookLoanId(loan.getId()));
+                }
+                bookLoanRepository.deleteAll(loans);
+            }
+            for (BookCopy copy : copies) {
+                bookCopyService.deleteBookCopy(copy.getId());
+            }
+            bookRepository.deleteById(book.getBookId());
+        }
+        userRepository.deleteAll(users);
+        books.clear();
+        users.clear();
+    }
+}
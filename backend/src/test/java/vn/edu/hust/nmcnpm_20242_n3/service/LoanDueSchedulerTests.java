@@ -0,0 +1,135 @@
+package vn.edu.hust.nmcnpm_20242_n3.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import vn.edu.hust.nmcnpm_20242_n3.constant.BookLoanStatusEnum;
+import vn.edu.hust.nmcnpm_20242_n3.entity.Book;
+import vn.edu.hust.nmcnpm_20242_n3.entity.BookCopy;
+import vn.edu.hust.nmcnpm_20242_n3.entity.User;
+import vn.edu.hust.nmcnpm_20242_n3.repository.BookLoanRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Small chunks, so that a tick with three due loans needs more than one update
+@SpringBootTest(properties = "loans.overdue.chunk-size=2")
+class LoanDueSchedulerTests {
+
+    @Autowired
+    private LoanDueScheduler loanDueScheduler;
+    @Autowired
+    private BookRequestService bookRequestService;
+    @Autowired
+    private LibraryFixture fixture;
+    @Autowired
+    private BookLoanRepository bookLoanRepository;
+
+    private List<User> users;
+
+    @AfterEach
+    void tearDown() {
+        fixture.cleanUp();
+    }
+
+    private List<BookCopy> createBookWithCopiesAndUsers(int copies) {
+        Book book = fixture.createBook("Due wheel", copies);
+        users = fixture.createUsers("Due wheel", copies);
+        return fixture.copiesOf(book);
+    }
+
+    // Lends the copy and moves the loan so that it falls due at the given time
+    private String lendDueAt(BookCopy copy, User user, long dueAt) {
+        String loanId = fixture.lend(copy, user);
+        fixture.makeDueAt(loanId, dueAt);
+        return loanId;
+    }
+
+    @Test
+    void loadSchedulesOnlyTheLoansDueWithinTheHorizon() {
+        List<BookCopy> copies = createBookWithCopiesAndUsers(2);
+        long now = System.currentTimeMillis();
+        String dueSoon = lendDueAt(copies.get(0), users.get(0), now + TimeUnit.HOURS.toMillis(1));
+        String dueLater = lendDueAt(copies.get(1), users.get(1), now + TimeUnit.HOURS.toMillis(72));
+
+        loanDueScheduler.load();
+
+        assertTrue(loanDueScheduler.isScheduled(dueSoon));
+        assertFalse(loanDueScheduler.isScheduled(dueLater));
+    }
+
+    @Test
+    void extendingTheHorizonSchedulesLoansComingIntoRange() {
+        BookCopy copy = createBookWithCopiesAndUsers(1).get(0);
+        long now = System.currentTimeMillis();
+        String loanId = lendDueAt(copy, users.get(0), now + TimeUnit.HOURS.toMillis(72));
+        loanDueScheduler.load();
+        assertFalse(loanDueScheduler.isScheduled(loanId));
+
+        // A day later the default 48 hour horizon reaches 73 hours from now
+        loanDueScheduler.extendHorizon(now + TimeUnit.HOURS.toMillis(25));
+
+        assertTrue(loanDueScheduler.isScheduled(loanId));
+    }
+
+    @Test
+    void tickMarksTheLoanOverdueOnceItFallsDue() throws InterruptedException {
+        BookCopy copy = createBookWithCopiesAndUsers(1).get(0);
+        String loanId = lendDueAt(copy, users.get(0), System.currentTimeMillis() + 1500);
+        loanDueScheduler.load();
+        assertTrue(loanDueScheduler.isScheduled(loanId));
+
+        // The wheel's own thread ticks every second
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (bookLoanRepository.findById(loanId).orElseThrow().getStatus() != BookLoanStatusEnum.OVERDUE
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(200);
+        }
+
+        assertEquals(BookLoanStatusEnum.OVERDUE, bookLoanRepository.findById(loanId).orElseThrow().getStatus());
+        assertFalse(loanDueScheduler.isScheduled(loanId));
+    }
+
+    @Test
+    void tickMarksMoreLoansThanOneChunk() throws InterruptedException {
+        List<BookCopy> copies = createBookWithCopiesAndUsers(3);
+        long dueAt = System.currentTimeMillis() + 1500;
+        List<String> loanIds = List.of(
+                lendDueAt(copies.get(0), users.get(0), dueAt),
+                lendDueAt(copies.get(1), users.get(1), dueAt),
+                lendDueAt(copies.get(2), users.get(2), dueAt));
+        loanDueScheduler.load();
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!loanIds.stream().allMatch(this::isOverdue) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(200);
+        }
+
+        for (String loanId : loanIds) {
+            assertTrue(isOverdue(loanId), loanId);
+            assertFalse(loanDueScheduler.isScheduled(loanId));
+        }
+    }
+
+    private boolean isOverdue(String loanId) {
+        return bookLoanRepository.findById(loanId).orElseThrow().getStatus() == BookLoanStatusEnum.OVERDUE;
+    }
+
+    @Test
+    void returningAScheduledLoanCancelsIt() {
+        BookCopy copy = createBookWithCopiesAndUsers(1).get(0);
+        String userId = users.get(0).getId();
+        String loanId = lendDueAt(copy, users.get(0), System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1));
+        loanDueScheduler.load();
+        assertTrue(loanDueScheduler.isScheduled(loanId));
+
+        String returnId = bookRequestService.newReturningRequest(userId, copy.getId()).getId();
+        bookRequestService.processRequest(returnId, true);
+
+        assertFalse(loanDueScheduler.isScheduled(loanId));
+        assertEquals(BookLoanStatusEnum.RETURNED, bookLoanRepository.findById(loanId).orElseThrow().getStatus());
+    }
+}
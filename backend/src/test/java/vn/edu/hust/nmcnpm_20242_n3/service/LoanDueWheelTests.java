@@ -0,0 +1,85 @@
+package vn.edu.hust.nmcnpm_20242_n3.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoanDueWheelTests {
+
+    private static final long SECOND = 1000;
+    private static final long DAY = 24 * 60 * 60 * SECOND;
+
+    @Test
+    void firesWithinOneTickOfTheDueTime() {
+        LoanDueWheel wheel = new LoanDueWheel(SECOND, 0);
+        wheel.schedule("a", 30 * DAY + 500);
+        wheel.schedule("b", 90 * SECOND);
+
+        assertTrue(wheel.advance(89 * SECOND).isEmpty());
+        assertEquals(List.of("b"), wheel.advance(90 * SECOND));
+        assertTrue(wheel.advance(30 * DAY).isEmpty());
+        assertEquals(List.of("a"), wheel.advance(30 * DAY + SECOND));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cancelledAndRescheduledLoansFireOnlyAtTheirLatestTime() {
+        LoanDueWheel wheel = new LoanDueWheel(SECOND, 0);
+        wheel.schedule("returned", 10 * SECOND);
+        wheel.schedule("extended", 10 * SECOND);
+        wheel.cancel("returned");
+        wheel.schedule("extended", 2 * DAY);
+
+        assertTrue(wheel.advance(DAY).isEmpty());
+        assertTrue(wheel.isScheduled("extended"));
+        assertEquals(List.of("extended"), wheel.advance(2 * DAY));
+    }
+
+    @Test
+    void pastDueTimesFireOnTheNextAdvance() {
+        LoanDueWheel wheel = new LoanDueWheel(SECOND, DAY);
+        wheel.schedule("late", DAY - 5 * SECOND);
+
+        assertEquals(List.of("late"), wheel.advance(DAY));
+    }
+
+    @Test
+    void matchesBruteForceOverRandomSchedules() {
+        Random random = new Random(7);
+        LoanDueWheel wheel = new LoanDueWheel(SECOND, 0);
+        Map<String, Long> expected = new HashMap<>();
+        long now = 0;
+        for (int step = 0; step < 20_000; step++) {
+            String id = "loan-" + random.nextInt(2_000);
+            int action = random.nextInt(10);
+            if (action < 6) {
+                // Whole seconds, since a loan may fire up to one tick after its due time
+                long due = (now + (long) (Math.pow(random.nextDouble(), 3) * 60 * DAY)) / SECOND * SECOND;
+                wheel.schedule(id, due);
+                expected.put(id, due);
+            } else if (action < 7) {
+                wheel.cancel(id);
+                expected.remove(id);
+            } else {
+                now += (long) (Math.pow(random.nextDouble(), 4) * 2 * DAY);
+                long at = now;
+                List<String> fired = new ArrayList<>(wheel.advance(now));
+                List<String> due = new ArrayList<>();
+                expected.forEach((loan, time) -> {
+                    if (time <= at) due.add(loan);
+                });
+                due.forEach(expected::remove);
+                fired.sort(null);
+                due.sort(null);
+                assertEquals(due, fired);
+            }
+        }
+        assertEquals(expected.size(), wheel.size());
+    }
+}
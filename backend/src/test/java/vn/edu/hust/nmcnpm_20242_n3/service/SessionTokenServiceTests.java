@@ -0,0 +1,146 @@
+package vn.edu.hust.nmcnpm_20242_n3.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import vn.edu.hust.nmcnpm_20242_n3.repository.RevokedTokenRepository;
+import vn.edu.hust.nmcnpm_20242_n3.service.SessionTokenService.SessionToken;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Every node is its own SessionTokenService, sharing the revoked_tokens table like separate instances would
+@SpringBootTest
+class SessionTokenServiceTests {
+
+    private static final String SECRET = Base64.getEncoder().encodeToString(
+            "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.US_ASCII));
+    private static final String OTHER_SECRET = Base64.getEncoder().encodeToString(
+            "fedcba9876543210fedcba9876543210".getBytes(StandardCharsets.US_ASCII));
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final Date testStart = new Date(System.currentTimeMillis() - 1000);
+
+    @AfterEach
+    void tearDown() {
+        revokedTokenRepository.deleteAll(revokedTokenRepository.findByRevokedAtAfter(testStart));
+    }
+
+    private SessionTokenService node(long ttlSeconds, String secret) {
+        return new SessionTokenService(revokedTokenRepository, true, ttlSeconds, secret);
+    }
+
+    @Test
+    void issuedTokenVerifiesWithItsClaims() {
+        SessionTokenService service = node(900, SECRET);
+        String encoded = service.issue("user-1", "reader|with pipe", "USER");
+
+        SessionToken token = service.verify(encoded).orElseThrow();
+        assertEquals("user-1", token.userId());
+        assertEquals("reader|with pipe", token.username());
+        assertEquals("USER", token.role());
+        assertTrue(token.expiresAt() > System.currentTimeMillis());
+        // Any node with the same secret accepts it
+        assertTrue(node(900, SECRET).verify(encoded).isPresent());
+    }
+
+    @Test
+    void tamperedOrForeignTokensAreRejected() {
+        SessionTokenService service = node(900, SECRET);
+        String encoded = service.issue("user-1", "reader", "USER");
+        int dot = encoded.indexOf('.');
+        String payload = new String(Base64.getUrlDecoder().decode(encoded.substring(0, dot)), StandardCharsets.UTF_8);
+
+        String elevated = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                payload.replace("|USER|", "|ADMIN|").getBytes(StandardCharsets.UTF_8)) + encoded.substring(dot);
+        char last = encoded.charAt(encoded.length() - 1);
+        String badSignature = encoded.substring(0, encoded.length() - 1) + (last == 'A' ? 'B' : 'A');
+
+        assertTrue(service.verify(elevated).isEmpty());
+        assertTrue(service.verify(badSignature).isEmpty());
+        assertTrue(service.verify(encoded.substring(0, dot)).isEmpty());
+        assertTrue(service.verify("not a token").isEmpty());
+        assertTrue(service.verify(null).isEmpty());
+        assertTrue(node(900, OTHER_SECRET).verify(encoded).isEmpty());
+    }
+
+    @Test
+    void expiredTokenIsRejected() {
+        SessionTokenService service = node(-1, SECRET);
+
+        assertTrue(service.verify(service.issue("user-1", "reader", "USER")).isEmpty());
+    }
+
+    @Test
+    void revokedTokensAreRejected() throws InterruptedException {
+        SessionTokenService service = node(900, SECRET);
+        String first = service.issue("user-1", "reader", "USER");
+        String second = service.issue("user-1", "reader", "USER");
+        String otherUser = service.issue("user-2", "writer", "USER");
+
+        service.revoke(service.verify(first).orElseThrow());
+        assertTrue(service.verify(first).isEmpty());
+        assertTrue(service.verify(second).isPresent());
+
+        service.revokeAllForUser("user-1");
+        assertTrue(service.verify(second).isEmpty());
+        assertTrue(service.verify(otherUser).isPresent());
+        // Tokens issued after the revocation are valid again
+        Thread.sleep(5);
+        assertTrue(service.verify(service.issue("user-1", "reader", "USER")).isPresent());
+    }
+
+    @Test
+    void refreshIssuesANewTokenAndRevokesTheOldOne() {
+        SessionTokenService service = node(900, SECRET);
+        String old = service.issue("user-1", "reader", "USER");
+
+        String fresh = service.refresh(old).orElseThrow();
+
+        assertNotEquals(old, fresh);
+        assertTrue(service.verify(old).isEmpty());
+        assertEquals("reader", service.verify(fresh).orElseThrow().username());
+        assertTrue(service.refresh(old).isEmpty());
+    }
+
+    @Test
+    void revocationsReachOtherNodesOnSync() {
+        SessionTokenService nodeA = node(900, SECRET);
+        SessionTokenService nodeB = node(900, SECRET);
+        String token = nodeA.issue("user-1", "reader", "USER");
+        String userToken = nodeA.issue("user-2", "writer", "USER");
+
+        nodeA.revoke(nodeA.verify(token).orElseThrow());
+        nodeA.revokeAllForUser("user-2");
+        // Until it syncs, the other node only knows its own revocations
+        assertTrue(nodeB.verify(token).isPresent());
+
+        // The nodes are not Spring proxies, so the sync gets the transaction its @Transactional would open
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> nodeB.syncRevocations());
+        assertTrue(nodeB.verify(token).isEmpty());
+        assertTrue(nodeB.verify(userToken).isEmpty());
+    }
+
+    @Test
+    void shortOrMalformedSecretFailsAtStartup() {
+        String shortSecret = Base64.getEncoder().encodeToString(new byte[SessionTokenService.MIN_SECRET_BYTES - 1]);
+
+        assertThrows(IllegalStateException.class, () -> node(900, shortSecret));
+        assertThrows(IllegalStateException.class, () -> node(900, "not base64!"));
+        // A blank secret falls back to a random key, only valid on this node
+        SessionTokenService random = node(900, "");
+        String encoded = random.issue("user-1", "reader", "USER");
+        assertTrue(random.verify(encoded).isPresent());
+        assertTrue(node(900, SECRET).verify(encoded).isEmpty());
+    }
+}
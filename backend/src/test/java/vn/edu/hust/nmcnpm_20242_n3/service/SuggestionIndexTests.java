@@ -0,0 +1,154 @@
+package vn.edu.hust.nmcnpm_20242_n3.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import vn.edu.hust.nmcnpm_20242_n3.service.SuggestionIndex.Suggestion;
+import vn.edu.hust.nmcnpm_20242_n3.service.SuggestionIndex.Type;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SuggestionIndexTests {
+
+    private SuggestionIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new SuggestionIndex();
+        index.load(List.of(
+                new Suggestion(Type.TITLE, 1, "Harry Potter và Hòn đá Phù thủy", 50),
+                new Suggestion(Type.TITLE, 2, "Harry Potter và Phòng chứa Bí mật", 30),
+                new Suggestion(Type.TITLE, 3, "Hai số phận", 80),
+                new Suggestion(Type.AUTHOR, 1, "Nguyễn Nhật Ánh", 120),
+                new Suggestion(Type.PUBLISHER, 1, "Kim Đồng", 200)));
+    }
+
+    @Test
+    void returnsHeaviestCompletionsFirst() {
+        assertEquals(List.of(3, 1, 2), ids(index.suggest("ha", 10)));
+        assertEquals(List.of(3, 1), ids(index.suggest("ha", 2)));
+        assertEquals(List.of(1, 2), ids(index.suggest("harry p", 10)));
+    }
+
+    @Test
+    void matchesWordStartsWithoutDiacritics() {
+        List<Suggestion> results = index.suggest("nhat a", 10);
+
+        assertEquals(1, results.size());
+        assertEquals(Type.AUTHOR, results.get(0).type());
+        assertEquals(Type.PUBLISHER, index.suggest("dong", 10).get(0).type());
+        assertTrue(index.suggest("hat", 10).isEmpty());
+    }
+
+    @Test
+    void writesAreVisibleBeforeAndAfterCompaction() {
+        index.put(new Suggestion(Type.TITLE, 4, "Harry Potter và Tên tù nhân ngục Azkaban", 90));
+        index.put(new Suggestion(Type.TITLE, 1, "Harry Potter and the Philosopher's Stone", 50));
+        index.remove(Type.TITLE, 2);
+
+        assertEquals(List.of(4, 1), ids(index.suggest("harry", 10)));
+        assertTrue(index.suggest("hon da", 10).isEmpty());
+
+        index.compact();
+
+        assertEquals(0, index.staleEntries());
+        assertEquals(List.of(4, 1), ids(index.suggest("harry", 10)));
+        assertEquals(List.of(1), ids(index.suggest("philosopher", 10)));
+    }
+
+    @Test
+    void loadKeepsWritesMadeWhileItsDataWasRead() {
+        index.startLoad();
+        // Committed while the rebuild reads the catalog, after it has read these rows
+        index.put(new Suggestion(Type.TITLE, 4, "Harry Potter và Tên tù nhân ngục Azkaban", 1));
+        index.put(new Suggestion(Type.TITLE, 1, "Harry Potter and the Philosopher's Stone", 50));
+        index.remove(Type.TITLE, 2);
+
+        index.load(List.of(
+                new Suggestion(Type.TITLE, 1, "Harry Potter và Hòn đá Phù thủy", 60),
+                new Suggestion(Type.TITLE, 2, "Harry Potter và Phòng chứa Bí mật", 30),
+                new Suggestion(Type.TITLE, 3, "Hai số phận", 80)));
+
+        assertEquals(List.of(1, 4), ids(index.suggest("harry", 10)));
+        assertTrue(index.suggest("hon da", 10).isEmpty());
+        // The rename keeps the freshly loaded weight
+        assertEquals(60, index.weight(Type.TITLE, 1));
+        assertEquals(3, index.size());
+
+        // Recording stops with the load
+        index.load(List.of(new Suggestion(Type.TITLE, 3, "Hai số phận", 80)));
+        assertTrue(index.suggest("harry", 10).isEmpty());
+    }
+
+    @Test
+    void cancelledLoadStopsRecording() {
+        index.startLoad();
+        index.put(new Suggestion(Type.TITLE, 4, "Harry Potter và Tên tù nhân ngục Azkaban", 90));
+        index.cancelLoad();
+
+        index.load(List.of(new Suggestion(Type.TITLE, 3, "Hai số phận", 80)));
+        assertTrue(index.suggest("harry", 10).isEmpty());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void benchmarkSuggestAtOneMillionTitles() {
+        int books = 1_000_000;
+        int queries = 10_000;
+        Random random = new Random(42);
+        String[] vocabulary = new String[50_000];
+        for (int i = 0; i < vocabulary.length; i++) {
+            vocabulary[i] = randomWord(random);
+        }
+
+        List<Suggestion> suggestions = new ArrayList<>(books);
+        String[] titles = new String[books];
+        for (int id = 1; id <= books; id++) {
+            StringBuilder title = new StringBuilder();
+            int words = 2 + random.nextInt(4);
+            for (int w = 0; w < words; w++) {
+                title.append(vocabulary[random.nextInt(vocabulary.length)]).append(' ');
+            }
+            titles[id - 1] = title.toString().trim();
+            suggestions.add(new Suggestion(Type.TITLE, id, titles[id - 1], random.nextInt(1000)));
+        }
+        SuggestionIndex large = new SuggestionIndex();
+        large.load(suggestions);
+
+        // The first round only warms up the JIT
+        long[] latencies = new long[queries];
+        for (int round = 0; round < 2; round++) {
+            for (int q = 0; q < queries; q++) {
+                // One to four typed characters of a word of an existing title
+                String[] words = titles[random.nextInt(books)].split(" ");
+                String word = words[random.nextInt(words.length)];
+                String query = word.substring(0, 1 + random.nextInt(Math.min(4, word.length())));
+                long start = System.nanoTime();
+                List<Suggestion> results = large.suggest(query, 10);
+                latencies[q] = System.nanoTime() - start;
+                assertFalse(results.isEmpty());
+            }
+        }
+
+        Arrays.sort(latencies);
+        double p99 = latencies[queries * 99 / 100] / 1e6;
+        assertTrue(p99 < 1.0, "p99 " + p99 + " ms");
+    }
+
+    private static List<Integer> ids(List<Suggestion> suggestions) {
+        return suggestions.stream().map(Suggestion::id).toList();
+    }
+
+    private static String randomWord(Random random) {
+        char[] letters = new char[4 + random.nextInt(6)];
+        for (int i = 0; i < letters.length; i++) {
+            letters[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(letters);
+    }
+}
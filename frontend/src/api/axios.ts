@@ -85,7 +85,8 @@ api.interceptors.request.use(
     config.withCredentials = true;
     const authToken = sessionStorage.getItem('AUTHORIZATION');
     if (authToken) {
-      config.headers.Authorization = `Basic ${authToken}`;
+      // Session tokens are returned with their scheme, basic credentials without
+      config.headers.Authorization = authToken.startsWith('Bearer ') ? authToken : `Basic ${authToken}`;
       console.log('Authorization header set:', config.headers.Authorization);
     }
     